@@ -0,0 +1,18 @@
+package benchmarks;
+
+import chess.Fen;
+
+/**
+ * The positions every benchmark runs on, one per phase of the game.
+ */
+public enum GamePhase {
+    OPENING(Fen.START),
+    MIDDLEGAME("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+    ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+
+    public final String fen;
+
+    GamePhase(String fen) {
+        this.fen = fen;
+    }
+}
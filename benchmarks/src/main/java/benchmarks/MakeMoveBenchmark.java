@@ -0,0 +1,41 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a validated {@link ChessGame#makeMove(ChessMove)}. The move is not
+ * reversible through the public API, so the game is rebuilt before every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MakeMoveBenchmark {
+
+    @Param
+    public GamePhase phase;
+
+    private ChessGame game;
+    private ChessMove move;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        game = Fen.parse(phase.fen);
+        if (move == null) {
+            MoveList moves = new MoveList();
+            new MoveGenerator(game.getBoard().getBitboards(), game.getTeamTurn().ordinal()).generate(moves);
+            move = Move.toChessMove(moves.get(0));
+        }
+    }
+
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        game.makeMove(move);
+        return game;
+    }
+}
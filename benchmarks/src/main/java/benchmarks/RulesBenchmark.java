@@ -0,0 +1,87 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the rules engine queries the server runs on every move.
+ * <p>
+ * Build with {@code mvn -pl benchmarks -am package -DskipTests} and run with
+ * {@code java -jar benchmarks/target/benchmarks.jar}; add {@code -prof gc} for
+ * allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RulesBenchmark {
+
+    @Param
+    public GamePhase phase;
+
+    private ChessGame game;
+    private ChessGame.TeamColor toMove;
+    private final List<ChessPosition> ownPieces = new ArrayList<>();
+    private BitboardPosition position;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setup() {
+        game = Fen.parse(phase.fen);
+        toMove = game.getTeamTurn();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                if (piece != null && piece.getTeamColor() == toMove) {
+                    ownPieces.add(new ChessPosition(row, col));
+                }
+            }
+        }
+        position = game.getBoard().getBitboards();
+        position.setSideToMove(toMove.ordinal());
+    }
+
+    // Every valid move of the side to move, as the client highlight and server validation ask for them
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : ownPieces) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(toMove);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(toMove);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(toMove);
+    }
+
+    // Generates the legal moves and plays each one in and out on the bitboards
+    @Benchmark
+    public long makeUnmakeAll() {
+        moves.clear();
+        new MoveGenerator(position, position.sideToMove()).generate(moves);
+        long keys = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            keys ^= position.key();
+            position.unmakeMove();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import chess.*;
+import chess.engine.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for the engine to complete a fixed-depth search, by thread count. The
+ * ratio of the one-thread score to the others is the Lazy SMP speedup. The
+ * transposition table is cleared before every search so no run starts warm.
+ * <p>
+ * The {@code nodes} secondary result counts the positions searched, so changes
+ * to move ordering show up as a smaller tree as well as a shorter time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public GamePhase phase;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    @Param({"6"})
+    public int depth;
+
+    private TranspositionTable table;
+    private ParallelSearcher searcher;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        table = new TranspositionTable(64);
+        searcher = new ParallelSearcher(Fen.parse(phase.fen), threads, table);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @Benchmark
+    public SearchResult timeToDepth(NodeCounter counter) {
+        SearchResult result = searcher.search(SearchLimits.depth(depth));
+        counter.nodes += result.nodes();
+        return result;
+    }
+
+    /**
+     * Nodes searched over a whole iteration; divide by the operation count for nodes per search
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+}
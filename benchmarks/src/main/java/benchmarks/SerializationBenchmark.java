@@ -0,0 +1,47 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Fen;
+import dataaccess.SQLGame;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round-trips of a game through the same code the game table uses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param
+    public GamePhase phase;
+
+    private ChessGame game;
+    private String json;
+
+    @Setup
+    public void setup() {
+        game = Fen.parse(phase.fen);
+        json = SQLGame.serializeGame(game);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return SQLGame.serializeGame(game);
+    }
+
+    @Benchmark
+    public ChessGame deserialize() {
+        return SQLGame.deserializeGame(json);
+    }
+
+    @Benchmark
+    public ChessGame roundTrip() {
+        return SQLGame.deserializeGame(SQLGame.serializeGame(game));
+    }
+}
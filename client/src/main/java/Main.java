@@ -4,6 +4,7 @@ import ui.PreLogin;
 
 public class Main {
     public static void main(String[] args) throws Exception {
+        ChessGame.setMoveCache(new MoveCache(4096));
         System.out.println("♕ 240 Chess Client:");
 
         ServerFacade server = new ServerFacade();
@@ -9,6 +9,8 @@ public class Main {
             throw new RuntimeException(ex);
         }
 
+        ChessGame.setMoveCache(new MoveCache(1 << 16));
+
         System.out.println("♕ 240 Chess Server");
         Server server = new Server();
         int port = server.run(8080);
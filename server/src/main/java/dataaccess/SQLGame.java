@@ -1,10 +1,23 @@
 package dataaccess;
 import chess.ChessGame;
+import chess.ChessPiece;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonObject;
 import model.GameData;
 import java.sql.SQLException;
 import java.util.HashSet;
 public class SQLGame implements GameRep {
+  // Board squares deserialize to the shared ChessPiece instances instead of a new object per piece
+  private static final Gson GSON = new GsonBuilder()
+          .registerTypeAdapter(ChessPiece.class, (JsonDeserializer<ChessPiece>) (json, type, context) -> {
+            JsonObject piece = json.getAsJsonObject();
+            return ChessPiece.of(context.deserialize(piece.get("teamColor"), ChessGame.TeamColor.class),
+                    context.deserialize(piece.get("pieceType"), ChessPiece.PieceType.class));
+          })
+          .create();
+
   public SQLGame() {
     try { DatabaseManager.createDatabase(); } catch (DataAccessException ex) {
       throw new RuntimeException(ex);
@@ -124,13 +137,13 @@ public class SQLGame implements GameRep {
     } catch (SQLException | DataAccessException ignored) {
     }
   }
-  private String serializeGame(ChessGame game) {
-    return new Gson().toJson(game);
+  public static String serializeGame(ChessGame game) {
+    return GSON.toJson(game);
   }
-  private ChessGame deserializeGame(String serializedGame) {
+  public static ChessGame deserializeGame(String serializedGame) {
     if (serializedGame.equals("null")) {
       return new ChessGame(); // Return a new default ChessGame object
     }
-    return new Gson().fromJson(serializedGame, ChessGame.class);
+    return GSON.fromJson(serializedGame, ChessGame.class);
   }
 }
\ No newline at end of file
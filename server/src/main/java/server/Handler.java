@@ -1,5 +1,12 @@
 package server;
 
+import chess.BitboardPosition;
+import chess.ChessGame;
+import chess.Move;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Searcher;
+import chess.engine.TranspositionTable;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import dataaccess.DataAccessException;
@@ -12,7 +19,18 @@ import model.GamesList;
 import service.Service.GameService;
 import spark.Request;
 import spark.Response;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 public class Handler {
@@ -63,6 +81,144 @@ public class Handler {
     }
   }
 
+  /**
+   * Runs the engine on a game's current position. Searches run on a small pool of
+   * their own threads with a bounded queue. Spark handlers are synchronous, so the
+   * Jetty thread of each request waits for its search; at most {@link #MAX_WAITING}
+   * may do so at once, a small fraction of Jetty's 200, and the rest are turned
+   * away at once with a 503, so analysis can never tie up the threads that serve
+   * moves. A search that cannot finish within its time budget is answered with a 504.
+   */
+  public static class AnalysisHandler {
+    // Leave at least half the cores to Jetty and the game traffic
+    static final int WORKERS = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    static final int QUEUE = WORKERS;
+    static final int MAX_WAITING = WORKERS + QUEUE;
+    static final int MAX_DEPTH = 32;
+    static final long DEFAULT_MILLIS = 1000;
+    static final long MAX_MILLIS = 10_000;
+    // Time a finished search gets to hand its result back
+    private static final long GRACE_MILLIS = 250;
+    private static final int TABLE_MEGABYTES = 16;
+
+    GameService gameService;
+    private final ThreadPoolExecutor pool;
+    private final Semaphore waiting = new Semaphore(MAX_WAITING);
+    // One table per worker, reused from search to search
+    private final ThreadLocal<TranspositionTable> tables =
+            ThreadLocal.withInitial(() -> new TranspositionTable(TABLE_MEGABYTES));
+
+    public AnalysisHandler(GameService gameService) {
+      this.gameService = gameService;
+      this.pool = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<>(QUEUE), Thread.ofPlatform().name("analysis-", 0).daemon().factory(),
+              new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public Object analyze(Request req, Response resp)
+            throws BadRequestException, UnauthorizedException, TimeoutException {
+      String authToken = req.headers("authorization");
+      int gameID = parse(req.params(":id"), 0, 1, Integer.MAX_VALUE);
+      int depth = parse(req.queryParams("depth"), 0, 1, MAX_DEPTH);
+      long millis = parse(req.queryParams("ms"), DEFAULT_MILLIS, 1, MAX_MILLIS);
+      GameData gameData = gameService.getGameData(authToken, gameID);
+      if (gameData == null) {
+        throw new BadRequestException("No game " + gameID);
+      }
+      // A game nobody has moved in yet is stored without a board
+      ChessGame game = gameData.game() == null ? new ChessGame() : gameData.game();
+      BitboardPosition position = game.getPosition();
+
+      if (!waiting.tryAcquire()) {
+        throw new RejectedExecutionException("Too many analysis requests waiting");
+      }
+      SearchResult result;
+      try {
+        result = search(position, depth, millis);
+      } finally {
+        waiting.release();
+      }
+
+      List<String> pv = new ArrayList<>(result.pv().length);
+      for (int move : result.pv()) {
+        pv.add(Move.toString(move));
+      }
+      record Analysis(String bestMove, int score, int mateIn, int depth, long nodes, long millis, List<String> pv) {
+      }
+      resp.status(200);
+      return new Gson().toJson(new Analysis(result.bestMove() == Move.NONE ? null : Move.toString(result.bestMove()),
+              result.score(), result.mateIn(), result.depth(), result.nodes(), result.elapsedNanos() / 1_000_000, pv));
+    }
+
+    private SearchResult search(BitboardPosition position, int depth, long millis) throws TimeoutException {
+      // The budget starts now, so time spent queued counts against it
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+      AtomicReference<Searcher> searcher = new AtomicReference<>();
+      Future<SearchResult> future = pool.submit(() -> {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          return null;
+        }
+        TranspositionTable table = tables.get();
+        table.newSearch();
+        searcher.set(new Searcher(position, table));
+        return searcher.get().search(new SearchLimits(depth, remaining, 0));
+      });
+
+      SearchResult result;
+      try {
+        result = future.get(millis + GRACE_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        result = null;
+      } catch (InterruptedException e) {
+        // The server is shutting down, which is not the search's fault
+        abandon(future, searcher.get());
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException("Analysis was interrupted", e);
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+      // Null as well when the search was still queued at its deadline
+      if (result == null) {
+        abandon(future, searcher.get());
+        throw new TimeoutException("Analysis did not finish within %d ms".formatted(millis));
+      }
+      return result;
+    }
+
+    // Frees the worker for the next request
+    private static void abandon(Future<SearchResult> future, Searcher running) {
+      future.cancel(false);
+      if (running != null) {
+        running.stop();
+      }
+    }
+
+    public void shutdown() {
+      pool.shutdownNow();
+    }
+
+    // A missing value takes the default, anything else must be a whole number within the bounds
+    private static int parse(String value, int fallback, int min, int max) throws BadRequestException {
+      return (int) parse(value, (long) fallback, min, max);
+    }
+
+    private static long parse(String value, long fallback, long min, long max) throws BadRequestException {
+      if (value == null || value.isEmpty()) {
+        return fallback;
+      }
+      try {
+        long number = Long.parseLong(value);
+        if (number < min || number > max) {
+          throw new BadRequestException("%s is not between %d and %d".formatted(value, min, max));
+        }
+        return number;
+      } catch (NumberFormatException e) {
+        throw new BadRequestException("%s is not a number".formatted(value));
+      }
+    }
+  }
+
   public static class UserHandler {
     service.Service.UserService userService;
 
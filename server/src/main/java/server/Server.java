@@ -6,6 +6,8 @@ import dataaccess.*;
 import service.Service.GameService;
 import org.eclipse.jetty.websocket.api.Session;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 public class Server {
 
@@ -18,6 +20,7 @@ public class Server {
 
     Handler.UserHandler userHandler;
     Handler.GameHandler gameHandler;
+    Handler.AnalysisHandler analysisHandler;
 
     static ConcurrentHashMap<Session, Integer> gameSessions = new ConcurrentHashMap<>();
 
@@ -32,6 +35,7 @@ public class Server {
 
         userHandler = new Handler.UserHandler(userService);
         gameHandler = new Handler.GameHandler(gameService);
+        analysisHandler = new Handler.AnalysisHandler(gameService);
 
         try { DatabaseManager.createDatabase(); } catch (DataAccessException ex) {
             throw new RuntimeException(ex);
@@ -54,9 +58,12 @@ public class Server {
         Spark.get("/game", gameHandler::listGames);
         Spark.post("/game", gameHandler::createGame);
         Spark.put("/game", gameHandler::joinGame);
+        Spark.get("/game/:id/analysis", analysisHandler::analyze);
 
         Spark.exception(BadRequestException.class, this::badRequestExceptionHandler);
         Spark.exception(UnauthorizedException.class, this::unauthorizedExceptionHandler);
+        Spark.exception(RejectedExecutionException.class, this::rejectedExecutionExceptionHandler);
+        Spark.exception(TimeoutException.class, this::timeoutExceptionHandler);
         Spark.exception(Exception.class, this::genericExceptionHandler);
 
 
@@ -67,6 +74,7 @@ public class Server {
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        analysisHandler.shutdown();
     }
 
     public void clearDB() {
@@ -91,6 +99,17 @@ public class Server {
         resp.body("{ \"message\": \"Error: unauthorized\" }");
     }
 
+    private void rejectedExecutionExceptionHandler(RejectedExecutionException ex, Request req, Response resp) {
+        resp.status(503);
+        resp.header("Retry-After", "1");
+        resp.body("{ \"message\": \"Error: analysis is unavailable, try again later\" }");
+    }
+
+    private void timeoutExceptionHandler(TimeoutException ex, Request req, Response resp) {
+        resp.status(504);
+        resp.body("{ \"message\": \"Error: %s\" }".formatted(ex.getMessage()));
+    }
+
     private void genericExceptionHandler(Exception ex, Request req, Response resp) {
         resp.status(500);
         resp.body("{ \"message\": \"Error: %s\" }".formatted(ex.getMessage()));
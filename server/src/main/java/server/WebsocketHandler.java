@@ -108,19 +108,33 @@ public class WebsocketHandler {
         Notification notif;
         ChessGame.TeamColor opponentColor = userColor == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
 
-        if (game.game().isInCheckmate(opponentColor)) {
-          notif = new Notification("Checkmate! %s wins!".formatted(auth.username()));
-          game.game().setGameOver(true);
+        switch (game.game().evaluateStatus(opponentColor)) {
+          case CHECKMATE -> {
+            notif = new Notification("Checkmate! %s wins!".formatted(auth.username()));
+            game.game().setGameOver(true);
+          }
+          case STALEMATE -> {
+            notif = new Notification("Stalemate caused by %s's move! It's a tie!".formatted(auth.username()));
+            game.game().setGameOver(true);
+          }
+          case CHECK -> notif = new Notification("A move has been made by %s, %s is now in check!".formatted(auth.username(), opponentColor.toString()));
+          default -> notif = new Notification("A move has been made by %s".formatted(auth.username()));
         }
-        else if (game.game().isInStalemate(opponentColor)) {
-          notif = new Notification("Stalemate caused by %s's move! It's a tie!".formatted(auth.username()));
-          game.game().setGameOver(true);
-        }
-        else if (game.game().isInCheck(opponentColor)) {
-          notif = new Notification("A move has been made by %s, %s is now in check!".formatted(auth.username(), opponentColor.toString()));
-        }
-        else {
-          notif = new Notification("A move has been made by %s".formatted(auth.username()));
+        if (!game.game().getGameOver()) {
+          String draw = null;
+          if (game.game().isInsufficientMaterial()) {
+            draw = "Neither side can checkmate after %s's move! It's a tie!";
+          }
+          else if (game.game().isThreefoldRepetition()) {
+            draw = "Threefold repetition after %s's move! It's a tie!";
+          }
+          else if (game.game().isFiftyMoveRule()) {
+            draw = "Fifty moves without a capture or pawn move after %s's move! It's a tie!";
+          }
+          if (draw != null) {
+            notif = new Notification(draw.formatted(auth.username()));
+            game.game().setGameOver(true);
+          }
         }
         broadcastMessage(session, notif);
 
@@ -0,0 +1,527 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard view of a chessboard: one 64-bit set per piece kind and color,
+ * plus occupancy sets and a square-to-piece mailbox.
+ * <p>
+ * Squares are numbered 0-63 starting at a1 (row 1, column 1) and moving
+ * along the row, so square = (row - 1) * 8 + (column - 1).
+ * Pieces are numbered color * 6 + type, where color and type are the
+ * ordinals of {@link ChessGame.TeamColor} and {@link ChessPiece.PieceType}.
+ */
+public final class BitboardPosition {
+    public static final int EMPTY = -1;
+    public static final int PIECE_KINDS = 12;
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int KING = 0;
+    public static final int QUEEN = 1;
+    public static final int BISHOP = 2;
+    public static final int KNIGHT = 3;
+    public static final int ROOK = 4;
+    public static final int PAWN = 5;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    // Castling rights that survive a move from or to each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[0] = ALL_CASTLING & ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] = ALL_CASTLING & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] = ALL_CASTLING & ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] = ALL_CASTLING & ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] = ALL_CASTLING & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] = ALL_CASTLING & ~BLACK_KINGSIDE;
+    }
+
+    private final long[] pieces = new long[PIECE_KINDS];
+    private final long[] colors = new long[2];
+    private long occupied;
+    private final int[] mailbox = new int[64];
+    private final int[] kingSquares = {EMPTY, EMPTY};
+    private int sideToMove = WHITE;
+    private int castlingRights;
+    private int enPassantSquare = EMPTY;
+    private long key;
+    // Running PieceSquareTables totals, White minus Black, and the game phase
+    private int middlegame;
+    private int endgame;
+    private int phase;
+    // Undo records for makeMove: from | to << 6 | (moved + 1) << 12 | (captured + 1) << 16 |
+    // castling rights << 20 | (en passant square + 1) << 24
+    private int[] undoStack = new int[64];
+    private int ply;
+
+    public BitboardPosition() {
+        Arrays.fill(mailbox, EMPTY);
+    }
+
+    /**
+     * Places a piece on a square, replacing whatever was there
+     *
+     * @param square the square index to place the piece on
+     * @param piece  the piece index, or {@link #EMPTY} to clear the square
+     */
+    public void put(int square, int piece) {
+        remove(square);
+        if (piece == EMPTY) {
+            return;
+        }
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        colors[colorOf(piece)] |= bit;
+        occupied |= bit;
+        mailbox[square] = piece;
+        key ^= Zobrist.piece(piece, square);
+        middlegame += PieceSquareTables.middlegame(piece, square);
+        endgame += PieceSquareTables.endgame(piece, square);
+        phase += PieceSquareTables.phase(piece);
+        if (typeOf(piece) == KING) {
+            kingSquares[colorOf(piece)] = square;
+        }
+    }
+
+    /**
+     * Removes whatever piece is on a square
+     *
+     * @param square the square index to clear
+     * @return the piece index that was removed, or {@link #EMPTY}
+     */
+    public int remove(int square) {
+        int piece = mailbox[square];
+        if (piece != EMPTY) {
+            long mask = ~(1L << square);
+            pieces[piece] &= mask;
+            colors[colorOf(piece)] &= mask;
+            occupied &= mask;
+            mailbox[square] = EMPTY;
+            key ^= Zobrist.piece(piece, square);
+            middlegame -= PieceSquareTables.middlegame(piece, square);
+            endgame -= PieceSquareTables.endgame(piece, square);
+            phase -= PieceSquareTables.phase(piece);
+            if (typeOf(piece) == KING && kingSquares[colorOf(piece)] == square) {
+                kingSquares[colorOf(piece)] = pieces[piece] == 0 ? EMPTY : Long.numberOfTrailingZeros(pieces[piece]);
+            }
+        }
+        return piece;
+    }
+
+    /**
+     * @return an independent position with the same pieces, side to move and
+     * rights, and no moves to take back
+     */
+    public BitboardPosition copy() {
+        BitboardPosition copy = new BitboardPosition();
+        System.arraycopy(pieces, 0, copy.pieces, 0, PIECE_KINDS);
+        System.arraycopy(colors, 0, copy.colors, 0, 2);
+        System.arraycopy(mailbox, 0, copy.mailbox, 0, 64);
+        System.arraycopy(kingSquares, 0, copy.kingSquares, 0, 2);
+        copy.occupied = occupied;
+        copy.sideToMove = sideToMove;
+        copy.castlingRights = castlingRights;
+        copy.enPassantSquare = enPassantSquare;
+        copy.key = key;
+        copy.middlegame = middlegame;
+        copy.endgame = endgame;
+        copy.phase = phase;
+        return copy;
+    }
+
+    public void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        occupied = 0L;
+        Arrays.fill(mailbox, EMPTY);
+        Arrays.fill(kingSquares, EMPTY);
+        sideToMove = WHITE;
+        castlingRights = 0;
+        enPassantSquare = EMPTY;
+        key = 0L;
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+        ply = 0;
+    }
+
+    /**
+     * Plays a packed move (see {@link Move}) in place, capturing whatever stands on
+     * the destination, and records what is needed to take it back with
+     * {@link #unmakeMove()}. A king moving two files castles, taking the rook
+     * along, and a pawn moving onto the en passant square captures the pawn
+     * beside it. Castling rights and the en passant square are updated from the
+     * squares the move touches.
+     *
+     * @param move the packed move
+     */
+    public void makeMove(int move) {
+        if (ply == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, ply * 2);
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int promotion = Move.promotion(move);
+        int moved = remove(from);
+        int us = colorOf(moved);
+        int type = typeOf(moved);
+        int captured;
+        if (type == PAWN && to == enPassantSquare) {
+            captured = remove(enPassantVictim(from, to));
+        } else {
+            captured = remove(to);
+        }
+        put(to, promotion == EMPTY ? moved : us * 6 + promotion);
+        if (type == KING && (to - from == 2 || from - to == 2)) {
+            put((from + to) >>> 1, remove(to > from ? from + 3 : from - 4));
+        }
+        undoStack[ply++] = from | to << 6 | (moved + 1) << 12 | (captured + 1) << 16 |
+                castlingRights << 20 | (enPassantSquare + 1) << 24;
+
+        setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+        int target = EMPTY;
+        if (type == PAWN && (to - from == 16 || from - to == 16)) {
+            target = (from + to) >>> 1;
+        }
+        setEnPassantSquare(target);
+        sideToMove ^= 1;
+        key ^= Zobrist.side();
+    }
+
+    /**
+     * Takes back the most recent {@link #makeMove(int)}
+     */
+    public void unmakeMove() {
+        int undo = undoStack[--ply];
+        int from = undo & 63;
+        int to = (undo >>> 6) & 63;
+        int moved = ((undo >>> 12) & 15) - 1;
+        int captured = ((undo >>> 16) & 15) - 1;
+        int previousEnPassant = ((undo >>> 24) & 127) - 1;
+        int type = typeOf(moved);
+        if (type == KING && (to - from == 2 || from - to == 2)) {
+            put(to > from ? from + 3 : from - 4, remove((from + to) >>> 1));
+        }
+        remove(to);
+        put(from, moved);
+        if (type == PAWN && to == previousEnPassant) {
+            put(enPassantVictim(from, to), captured);
+        } else {
+            put(to, captured);
+        }
+        setCastlingRights((undo >>> 20) & 15);
+        setEnPassantSquare(previousEnPassant);
+        sideToMove ^= 1;
+        key ^= Zobrist.side();
+    }
+
+    // The pawn taken en passant stands on the capturing pawn's row, in the file it moves to
+    private static int enPassantVictim(int from, int to) {
+        return (from & ~7) | (to & 7);
+    }
+
+    /**
+     * @return the ordinal of the team to move, which {@link #makeMove(int)} flips
+     */
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int color) {
+        if (color != sideToMove) {
+            sideToMove = color;
+            key ^= Zobrist.side();
+        }
+    }
+
+    /**
+     * @return the set of castling rights left, a combination of {@link #WHITE_KINGSIDE},
+     * {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+     */
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int rights) {
+        if (rights != castlingRights) {
+            key ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+            castlingRights = rights;
+        }
+    }
+
+    /**
+     * @return the square a pawn may capture en passant on, or {@link #EMPTY}
+     */
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * Sets the en passant target square. The square only counts, both for move
+     * generation and in the key, while an enemy pawn stands ready to capture on
+     * it, so positions that differ in nothing else hash the same.
+     *
+     * @param square the square a pawn skipped over, or {@link #EMPTY}
+     */
+    public void setEnPassantSquare(int square) {
+        if (square != EMPTY) {
+            int capturer = square >= 32 ? WHITE : BLACK;
+            if ((Bitboards.pawnAttacks(capturer ^ 1, square) & pieces[capturer * 6 + PAWN]) == 0) {
+                square = EMPTY;
+            }
+        }
+        if (square != enPassantSquare) {
+            if (enPassantSquare != EMPTY) {
+                key ^= Zobrist.enPassant(enPassantSquare & 7);
+            }
+            if (square != EMPTY) {
+                key ^= Zobrist.enPassant(square & 7);
+            }
+            enPassantSquare = square;
+        }
+    }
+
+    /**
+     * @return the castling rights and en passant square packed into one int, as
+     * rights | (en passant square + 1) &lt;&lt; 4
+     */
+    public int rights() {
+        return castlingRights | (enPassantSquare + 1) << 4;
+    }
+
+    /**
+     * Restores state saved with {@link #rights()}
+     */
+    public void setRights(int rights) {
+        setCastlingRights(rights & 15);
+        setEnPassantSquare((rights >>> 4) - 1);
+    }
+
+    /**
+     * Grants every castling right whose king and rook still stand on their
+     * starting squares and clears the en passant square, for boards set up
+     * without a move history
+     */
+    public void inferRights() {
+        int rights = 0;
+        for (int color = WHITE; color <= BLACK; color++) {
+            int home = color == WHITE ? 0 : 56;
+            if (mailbox[home + 4] != color * 6 + KING) {
+                continue;
+            }
+            if (mailbox[home + 7] == color * 6 + ROOK) {
+                rights |= color == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+            }
+            if (mailbox[home] == color * 6 + ROOK) {
+                rights |= color == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+            }
+        }
+        setCastlingRights(rights);
+        setEnPassantSquare(EMPTY);
+    }
+
+    /**
+     * @return the Zobrist key of the whole position, including the side to move,
+     * castling rights and en passant file
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return the Zobrist key of the piece placement alone
+     */
+    public long pieceKey() {
+        long pieceKey = key ^ Zobrist.castling(castlingRights);
+        if (enPassantSquare != EMPTY) {
+            pieceKey ^= Zobrist.enPassant(enPassantSquare & 7);
+        }
+        return sideToMove == BLACK ? pieceKey ^ Zobrist.side() : pieceKey;
+    }
+
+    /**
+     * @return the sum of the {@link PieceSquareTables} middlegame values of every
+     * piece, White minus Black
+     */
+    public int middlegameScore() {
+        return middlegame;
+    }
+
+    /**
+     * @return the sum of the {@link PieceSquareTables} endgame values of every
+     * piece, White minus Black
+     */
+    public int endgameScore() {
+        return endgame;
+    }
+
+    /**
+     * @return the game phase, from {@link PieceSquareTables#MAX_PHASE} with every
+     * piece on the board down to 0 with only kings and pawns; promotions can
+     * push it above the maximum
+     */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * @return the piece index on the square, or {@link #EMPTY}
+     */
+    public int pieceAt(int square) {
+        return mailbox[square];
+    }
+
+    /**
+     * @param color the ordinal of the king's team color
+     * @return the square index of that team's king, or {@link #EMPTY} if it has none
+     */
+    public int kingSquare(int color) {
+        return kingSquares[color];
+    }
+
+    /**
+     * @return the set of squares holding the given piece index
+     */
+    public long pieces(int piece) {
+        return pieces[piece];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color and type
+     */
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color
+     */
+    public long color(ChessGame.TeamColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * @return the set of squares holding any piece
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * Determines if any piece of the given color attacks a square, by looking
+     * outward from the square along knight, pawn, king and slider rays
+     *
+     * @param square  the square index to test
+     * @param byColor the ordinal of the attacking team's color
+     * @return True if the square is attacked
+     */
+    public boolean isSquareAttacked(int square, int byColor) {
+        return isSquareAttacked(square, byColor, occupied);
+    }
+
+    /**
+     * Same as {@link #isSquareAttacked(int, int)}, but with sliders blocked by the
+     * given occupancy instead of the real one
+     */
+    public boolean isSquareAttacked(int square, int byColor, long occupied) {
+        int base = byColor * 6;
+        if ((Bitboards.pawnAttacks(byColor ^ 1, square) & pieces[base + PAWN]) != 0 ||
+                (Bitboards.knightAttacks(square) & pieces[base + KNIGHT]) != 0 ||
+                (Bitboards.kingAttacks(square) & pieces[base + KING]) != 0) {
+            return true;
+        }
+        long queens = pieces[base + QUEEN];
+        return (Bitboards.bishopAttacks(square, occupied) & (pieces[base + BISHOP] | queens)) != 0 ||
+                (Bitboards.rookAttacks(square, occupied) & (pieces[base + ROOK] | queens)) != 0;
+    }
+
+    /**
+     * Gets every piece of either color that attacks a square
+     *
+     * @param square   the square index to test
+     * @param occupied the occupancy that blocks sliders
+     * @return the set of squares holding attackers
+     */
+    public long attackersTo(int square, long occupied) {
+        return (Bitboards.pawnAttacks(BLACK, square) & pieces[WHITE * 6 + PAWN]) |
+                (Bitboards.pawnAttacks(WHITE, square) & pieces[BLACK * 6 + PAWN]) |
+                (Bitboards.knightAttacks(square) & (pieces[KNIGHT] | pieces[6 + KNIGHT])) |
+                (Bitboards.kingAttacks(square) & (pieces[KING] | pieces[6 + KING])) |
+                (Bitboards.bishopAttacks(square, occupied) &
+                        (pieces[BISHOP] | pieces[6 + BISHOP] | pieces[QUEEN] | pieces[6 + QUEEN])) |
+                (Bitboards.rookAttacks(square, occupied) &
+                        (pieces[ROOK] | pieces[6 + ROOK] | pieces[QUEEN] | pieces[6 + QUEEN]));
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color ordinal
+     */
+    public long color(int color) {
+        return colors[color];
+    }
+
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    public static int pieceIndex(ChessPiece piece) {
+        return piece == null ? EMPTY : pieceIndex(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    public static int colorOf(int piece) {
+        return piece / 6;
+    }
+
+    public static int typeOf(int piece) {
+        return piece % 6;
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int rowOf(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int columnOf(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static ChessPosition toPosition(int square) {
+        return ChessPosition.of(rowOf(square), columnOf(square));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {return true;}
+        if (o == null || getClass() != o.getClass()) {return false;}
+        BitboardPosition that=(BitboardPosition) o;
+        return key == that.key && sideToMove == that.sideToMove && castlingRights == that.castlingRights &&
+                enPassantSquare == that.enPassantSquare && Arrays.equals(pieces, that.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return "BitboardPosition{" +
+                "pieces=" + Arrays.toString(pieces) +
+                '}';
+    }
+}
@@ -10,6 +10,8 @@ import java.util.Arrays;
  */
 public class ChessBoard {
     private ChessPiece[][] squares = new ChessPiece[8][8];
+    // Derived from squares, which stays the serialized form; rebuilt lazily after deserialization
+    private transient BitboardPosition bitboards;
     public ChessBoard() {
         
     }
@@ -22,6 +24,35 @@ public class ChessBoard {
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
         squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        getBitboards().put(BitboardPosition.square(position), BitboardPosition.pieceIndex(piece));
+    }
+
+    /**
+     * Plays a packed move (see {@link Move}) on the board, including the rook move
+     * of a castle and the pawn taken en passant
+     *
+     * @param move the packed move
+     */
+    public void makeMove(int move) {
+        BitboardPosition position = getBitboards();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = BitboardPosition.typeOf(position.pieceAt(from));
+        boolean enPassant = type == BitboardPosition.PAWN && to == position.enPassantSquare();
+        position.makeMove(move);
+        syncSquare(from);
+        syncSquare(to);
+        if (type == BitboardPosition.KING && (to - from == 2 || from - to == 2)) {
+            syncSquare(to > from ? from + 3 : from - 4);
+            syncSquare((from + to) >>> 1);
+        } else if (enPassant) {
+            syncSquare((from & ~7) | (to & 7));
+        }
+    }
+
+    private void syncSquare(int square) {
+        int piece = bitboards.pieceAt(square);
+        squares[square >>> 3][square & 7] = piece == BitboardPosition.EMPTY ? null : ChessPiece.of(piece);
     }
 
     /**
@@ -35,6 +66,18 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets the square a team's king stands on, which the board tracks as pieces
+     * are added and moved
+     *
+     * @param teamColor the team whose king to find
+     * @return the king's position, or null if that team has no king on the board
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor teamColor) {
+        int square = getBitboards().kingSquare(teamColor.ordinal());
+        return square == BitboardPosition.EMPTY ? null : BitboardPosition.toPosition(square);
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -48,35 +91,56 @@ public class ChessBoard {
 
         // Set up white pawns on row 2
         for (int col = 0; col < 8; col++) {
-            squares[1][col] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+            squares[1][col] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         }
 
         // Set up black pawns on row 7
         for (int col = 0; col < 8; col++) {
-            squares[6][col] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+            squares[6][col] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
         }
 
         // Set up major pieces for white (row 1)
-        squares[0][0] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        squares[0][1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][2] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][3] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        squares[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        squares[0][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        squares[0][0] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        squares[0][1] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        squares[0][2] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+        squares[0][3] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+        squares[0][4] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        squares[0][5] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+        squares[0][6] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        squares[0][7] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
 
         // Set up major pieces for black (row 8)
-        squares[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        squares[7][1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][2] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        squares[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        squares[7][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        squares[7][0] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        squares[7][1] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        squares[7][2] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        squares[7][3] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        squares[7][4] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        squares[7][5] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        squares[7][6] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        squares[7][7] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+
+        bitboards = null;
     }
 
+    /**
+     * Gets the bitboard representation of this board, which is kept in sync
+     * with every piece added or removed
+     *
+     * @return the bitboards for this board
+     */
+    public BitboardPosition getBitboards() {
+        if (bitboards == null) {
+            bitboards = new BitboardPosition();
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    if (squares[row][col] != null) {
+                        bitboards.put(row * 8 + col, BitboardPosition.pieceIndex(squares[row][col]));
+                    }
+                }
+            }
+        }
+        return bitboards;
+    }
 
 
     @Override
@@ -91,11 +155,21 @@ public class ChessBoard {
         if (this == o) {return true;}
         if (o == null || getClass() != o.getClass()) {return false;}
         ChessBoard that=(ChessBoard) o;
-        return Arrays.deepEquals(squares, that.squares);
+        BitboardPosition mine = getBitboards();
+        BitboardPosition theirs = that.getBitboards();
+        if (mine.pieceKey() != theirs.pieceKey()) {
+            return false;
+        }
+        for (int piece = 0; piece < BitboardPosition.PIECE_KINDS; piece++) {
+            if (mine.pieces(piece) != theirs.pieces(piece)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getBitboards().pieceKey());
     }
 }
@@ -1,8 +1,8 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Objects;
-import java.util.ArrayList;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -14,6 +14,21 @@ public class ChessGame {
     private TeamColor teamTurn;
     private ChessBoard board;
     private boolean gameOver;
+    // Castling rights and en passant square as packed by BitboardPosition.rights(),
+    // or UNKNOWN_RIGHTS until inferred from the piece placement
+    private int rights = UNKNOWN_RIGHTS;
+    private static final int UNKNOWN_RIGHTS = -1;
+    // Position keys since the last pawn move, capture or loss of castling rights,
+    // ending with the current position; empty until the first move
+    private long[] history = new long[16];
+    private int historySize;
+    // Half-moves since the last pawn move or capture
+    private int halfmoveClock;
+    // Last evaluateStatus result, valid while the position key and color match
+    private transient GameStatus cachedStatus;
+    private transient TeamColor cachedStatusColor;
+    private transient long cachedStatusKey;
+    private static volatile MoveCache moveCache;
     public ChessGame() {
         teamTurn = TeamColor.WHITE;
         board = new ChessBoard();
@@ -34,6 +49,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         teamTurn = team;
+        historySize = 0;
     }
 
     @Override
@@ -41,12 +57,44 @@ public class ChessGame {
         if (this == o) {return true;}
         if (o == null || getClass() != o.getClass()) {return false;}
         ChessGame chessGame=(ChessGame) o;
-        return teamTurn == chessGame.teamTurn && Objects.equals(board, chessGame.board);
+        if (board == null || chessGame.board == null) {
+            return teamTurn == chessGame.teamTurn && board == chessGame.board;
+        }
+        return getPositionKey() == chessGame.getPositionKey() && teamTurn == chessGame.teamTurn &&
+                board.equals(chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamTurn, board);
+        return board == null ? Objects.hashCode(teamTurn) : Long.hashCode(getPositionKey());
+    }
+
+    /**
+     * Gets the Zobrist key of the current position, covering the pieces and the
+     * team to move. Equal positions always have equal keys.
+     *
+     * @return the 64-bit position key
+     */
+    public long getPositionKey() {
+        return getPosition().key();
+    }
+
+    /**
+     * Gets the board's bitboards with the side to move, castling rights and en
+     * passant square synced to this game
+     *
+     * @return the current position
+     */
+    public BitboardPosition getPosition() {
+        BitboardPosition position = board.getBitboards();
+        position.setSideToMove(teamTurn.ordinal());
+        if (rights == UNKNOWN_RIGHTS) {
+            position.inferRights();
+            rights = position.rights();
+        } else {
+            position.setRights(rights);
+        }
+        return position;
     }
 
     @Override
@@ -65,6 +113,33 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Enum identifying the state a team is in after a move
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    /**
+     * Shares a legal move cache between every game, so repeated validMoves calls
+     * on an unchanged position skip move generation
+     *
+     * @param cache the cache to use, or null to always generate moves
+     */
+    public static void setMoveCache(MoveCache cache) {
+        moveCache = cache;
+    }
+
+    /**
+     * @return the shared legal move cache, or null if none is set
+     */
+    public static MoveCache getMoveCache() {
+        return moveCache;
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -78,21 +153,18 @@ public class ChessGame {
             return null;
         }
 
-        Collection<ChessMove> potentialMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        // Simulation
-        for (ChessMove move : potentialMoves) {
-            ChessBoard tempBoard = simulateMove(board, move);
-            ChessGame tempGame = new ChessGame();
-            tempGame.setBoard(tempBoard);
-
-            if (!tempGame.isInCheck(piece.getTeamColor())) {
-                validMoves.add(move);
+        int square = BitboardPosition.square(startPosition);
+        MoveCache cache = moveCache;
+        long key = cache == null ? 0 : getPositionKey();
+        long targets = cache == null ? MoveCache.MISS : cache.get(key, square);
+        if (targets == MoveCache.MISS) {
+            MoveGenerator generator = new MoveGenerator(getPosition(), piece.getTeamColor().ordinal());
+            targets = generator.legalTargets(square);
+            if (cache != null) {
+                cache.put(key, square, targets);
             }
         }
-
-        return validMoves;
+        return MoveGenerator.toMoves(startPosition, targets, piece.getPieceType() == ChessPiece.PieceType.PAWN);
     }
 
     /**
@@ -107,100 +179,164 @@ public class ChessGame {
         if (piece == null || piece.getTeamColor() != teamTurn) {
             throw new InvalidMoveException("Invalid move: not team's turn");
         }
-        if (validMoves == null || !validMoves.contains(move) || isInCheck(teamTurn)) {
+        if (validMoves == null || !validMoves.contains(move)) {
             throw new InvalidMoveException("Invalid move");
         }
 
-        board.addPiece(move.getEndPosition(), piece);
-        board.addPiece(move.getStartPosition(), null);  // Remove piece from start position
-
-        // Pawn promotion
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            int promotionRow = (piece.getTeamColor() == TeamColor.WHITE) ? 8 : 1;
-            if (move.getEndPosition().getRow() == promotionRow && move.getPromotionPiece() != null) {
-                board.addPiece(move.getEndPosition(), new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-            }
+        if (historySize == 0) {
+            pushHistory(getPositionKey());
         }
+        int castlingRights = getPosition().castlingRights();
+        boolean irreversible = piece.getPieceType() == ChessPiece.PieceType.PAWN ||
+                board.getPiece(move.getEndPosition()) != null;
+
+        // Castling, en passant and promotion are all carried out by the board
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        board.makeMove(Move.of(BitboardPosition.square(move.getStartPosition()), BitboardPosition.square(move.getEndPosition()),
+                promotion == null ? BitboardPosition.EMPTY : promotion.ordinal(), 0));
+        rights = board.getBitboards().rights();
 
         // Handle turn switching after move
-        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        teamTurn = opponent(teamTurn);
+
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        // No earlier position can recur after an irreversible move
+        if (irreversible || board.getBitboards().castlingRights() != castlingRights) {
+            historySize = 0;
+        }
+        pushHistory(getPositionKey());
     }
 
-    /**
-     * Determines if the given team is in check
-     *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
-     */
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKing(teamColor);
-        for (int row = 1; row < 9; row++) {
-            for (int col = 1; col < 9; col++) {
-                if (canAttackKing(teamColor, kingPosition, row, col)) {
-                    return true;
-                }
-            }
+    private void pushHistory(long key) {
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
         }
-        return false; // The king is not in check
+        history[historySize++] = key;
     }
 
-    private boolean canAttackKing(TeamColor teamColor, ChessPosition kingPosition, int row, int col) {
-        ChessPiece opponentPiece = board.getPiece(new ChessPosition(row, col));
-        if (opponentPiece == null || opponentPiece.getTeamColor() == teamColor) {
+    /**
+     * Determines if the current position has occurred at least three times with
+     * the same team to move, counting only positions since the last irreversible
+     * move, which are the only ones that can match
+     *
+     * @return True if the game can be drawn by threefold repetition
+     */
+    public boolean isThreefoldRepetition() {
+        if (historySize < 5) {
             return false;
         }
-
-        Collection<ChessMove> moves = opponentPiece.pieceMoves(board, new ChessPosition(row, col));
-        for (ChessMove move : moves) {
-            if (move.getEndPosition().equals(kingPosition)) {
+        long key = history[historySize - 1];
+        int count = 1;
+        // Only positions with the same team to move can match
+        for (int i = historySize - 3; i >= 0; i -= 2) {
+            if (history[i] == key && ++count == 3) {
                 return true;
             }
         }
         return false;
     }
 
-    private ChessPosition findKing(TeamColor teamColor) {
-        for (int row = 1; row < 9; row++) {
-            for (int col = 1; col < 9; col++) {
-                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor) {
-                    return new ChessPosition(row, col);
-                }
-            }
-        }
-        return null;
+    /**
+     * @return the number of half-moves since the last pawn move or capture
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
     }
 
     /**
-     * Determines if the given team is in checkmate
+     * Determines if fifty moves by each team have passed without a pawn move or
+     * capture
      *
-     * @param teamColor which team to check for checkmate
-     * @return True if the specified team is in checkmate
+     * @return True if the game can be drawn by the fifty-move rule
      */
-    public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Determines if neither team has the material left to ever checkmate: bare
+     * kings, a single minor piece, or only bishops that all stand on squares of
+     * one color. Counts come straight from the piece bitboards.
+     *
+     * @return True if the position is dead
+     */
+    public boolean isInsufficientMaterial() {
+        BitboardPosition position = getPosition();
+        long heavy = 0;
+        long knights = 0;
+        long bishops = 0;
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++) {
+            int base = color * 6;
+            heavy |= position.pieces(base + BitboardPosition.PAWN) | position.pieces(base + BitboardPosition.ROOK) |
+                    position.pieces(base + BitboardPosition.QUEEN);
+            knights |= position.pieces(base + BitboardPosition.KNIGHT);
+            bishops |= position.pieces(base + BitboardPosition.BISHOP);
+        }
+        if (heavy != 0) {
             return false;
         }
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & Bitboards.LIGHT_SQUARES) == 0 || (bishops & ~Bitboards.LIGHT_SQUARES) == 0);
+    }
 
-        return scanBoard(teamColor);
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        int kingSquare = getPosition().kingSquare(teamColor.ordinal());
+        if (kingSquare == BitboardPosition.EMPTY) {
+            return false;
+        }
+        return getPosition().isSquareAttacked(kingSquare, opponent(teamColor).ordinal());
     }
 
-    private ChessBoard simulateMove(ChessBoard originalBoard, ChessMove move) {
-        ChessBoard simulatedBoard = new ChessBoard();
+    /**
+     * Determines if any piece of the given team attacks a square
+     *
+     * @param square  the square to test
+     * @param byColor the attacking team
+     * @return True if the square is attacked
+     */
+    public boolean isSquareAttacked(ChessPosition square, TeamColor byColor) {
+        return getPosition().isSquareAttacked(BitboardPosition.square(square), byColor.ordinal());
+    }
 
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = originalBoard.getPiece(position);
-                if (piece != null) {simulatedBoard.addPiece(position, piece);}
-            }
-        }
+    /**
+     * Estimates the material a move wins or loses through the exchange it starts
+     * on its destination square, without playing it
+     *
+     * @param move a move for the team whose turn it is
+     * @return the material gained in centipawns, negative if the move loses material
+     * @see StaticExchange#see(BitboardPosition, int)
+     */
+    public int staticExchange(ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return StaticExchange.see(getPosition(), Move.of(BitboardPosition.square(move.getStartPosition()),
+                BitboardPosition.square(move.getEndPosition()),
+                promotion == null ? BitboardPosition.EMPTY : promotion.ordinal(), 0));
+    }
 
-        ChessPiece pieceToMove = simulatedBoard.getPiece(move.getStartPosition());
-        simulatedBoard.addPiece(move.getEndPosition(), pieceToMove);
-        simulatedBoard.addPiece(move.getStartPosition(), null);
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
 
-        return simulatedBoard;
+    /**
+     * Determines if the given team is in checkmate
+     *
+     * @param teamColor which team to check for checkmate
+     * @return True if the specified team is in checkmate
+     */
+    public boolean isInCheckmate(TeamColor teamColor) {
+        return evaluateStatus(teamColor) == GameStatus.CHECKMATE;
     }
 
     /**
@@ -211,48 +347,48 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-
-        return scanBoard(teamColor);
+        return evaluateStatus(teamColor) == GameStatus.STALEMATE;
     }
 
-    public boolean scanBoard(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                if (canAvoidCheck(teamColor, row, col)) {
-                    return false;
-                }
-            }
+    /**
+     * Determines whether the given team is in check, checkmate, stalemate or none
+     * of those, with one check test and at most one legal move search. The result
+     * is remembered until the position changes.
+     *
+     * @param teamColor which team to evaluate
+     * @return the team's status in the current position
+     */
+    public GameStatus evaluateStatus(TeamColor teamColor) {
+        long key = getPositionKey();
+        if (cachedStatus != null && cachedStatusColor == teamColor && cachedStatusKey == key) {
+            return cachedStatus;
         }
-        return true;
-    }
 
-    private boolean canAvoidCheck(TeamColor teamColor, int row, int col) {
-        ChessPiece piece = board.getPiece(new ChessPosition(row, col));
-        if (piece == null || piece.getTeamColor() != teamColor) {
-            return false;
+        MoveGenerator generator = new MoveGenerator(getPosition(), teamColor.ordinal());
+        boolean hasMove = generator.hasLegalMove();
+        GameStatus status;
+        if (generator.inCheck()) {
+            status = hasMove ? GameStatus.CHECK : GameStatus.CHECKMATE;
+        } else {
+            status = hasMove ? GameStatus.NORMAL : GameStatus.STALEMATE;
         }
 
-        Collection<ChessMove> validMoves = piece.pieceMoves(board, new ChessPosition(row, col));
-        for (ChessMove move : validMoves) {
-            if (isSafeAfterMove(teamColor, move)) {
-                return true;
-            }
-        }
-        return false;
+        cachedStatus = status;
+        cachedStatusColor = teamColor;
+        cachedStatusKey = key;
+        return status;
     }
 
-    private boolean isSafeAfterMove(TeamColor teamColor, ChessMove move) {
-        ChessBoard tempBoard = simulateMove(board, move);
-        ChessGame tempGame = new ChessGame();
-        tempGame.setBoard(tempBoard);
-        tempGame.setTeamTurn(teamColor);
-        return !tempGame.isInCheck(teamColor);
+    /**
+     * Determines if the given team has no valid moves at all
+     *
+     * @param teamColor which team to look for moves for
+     * @return True if no piece of the team can make a valid move
+     */
+    public boolean scanBoard(TeamColor teamColor) {
+        return !new MoveGenerator(getPosition(), teamColor.ordinal()).hasLegalMove();
     }
 
-
     /**
      * Sets this game's chessboard with a given board
      *
@@ -260,6 +396,24 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        rights = UNKNOWN_RIGHTS;
+        historySize = 0;
+        halfmoveClock = 0;
+    }
+
+    /**
+     * Sets the castling rights and en passant square, which otherwise are inferred
+     * from the piece placement when a board is set
+     *
+     * @param castlingRights a combination of the {@link BitboardPosition} castling flags
+     * @param enPassant      the square a pawn just skipped over, or null
+     */
+    public void setRights(int castlingRights, ChessPosition enPassant) {
+        BitboardPosition position = board.getBitboards();
+        position.setCastlingRights(castlingRights);
+        position.setEnPassantSquare(enPassant == null ? BitboardPosition.EMPTY : BitboardPosition.square(enPassant));
+        rights = position.rights();
+        historySize = 0;
     }
 
     /**
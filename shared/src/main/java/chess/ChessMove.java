@@ -10,9 +10,12 @@ import java.util.Objects;
  */
 public class ChessMove {
 
-    private ChessPosition startPosition;  // Field to store starting position
-    private ChessPosition endPosition;    // Field to store ending position
-    private ChessPiece.PieceType promotionPiece;  // Field to store promotion piece, if any
+    // Filled on first use; slot 0 of each from/to pair is the non-promoting move
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * 7];
+
+    private final ChessPosition startPosition;  // Field to store starting position
+    private final ChessPosition endPosition;    // Field to store ending position
+    private final ChessPiece.PieceType promotionPiece;  // Field to store promotion piece, if any
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -20,6 +23,24 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets the shared instance of a move between two squares on the board
+     *
+     * @param from           the square index the piece moves from
+     * @param to             the square index the piece moves to
+     * @param promotionPiece the piece type a pawn promotes to, or null
+     * @return the cached move
+     */
+    public static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        int index = (from * 64 + to) * 7 + (promotionPiece == null ? 0 : promotionPiece.ordinal() + 1);
+        ChessMove move = MOVES[index];
+        if (move == null) {
+            move = new ChessMove(BitboardPosition.toPosition(from), BitboardPosition.toPosition(to), promotionPiece);
+            MOVES[index] = move;
+        }
+        return move;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
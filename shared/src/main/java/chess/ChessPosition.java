@@ -10,6 +10,14 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -18,6 +26,17 @@ public class ChessPosition {
         this.col=col;
     }
 
+    /**
+     * Gets the shared instance for a square on the board
+     *
+     * @param row the row, 1 through 8
+     * @param col the column, 1 through 8
+     * @return the cached position
+     */
+    public static ChessPosition of(int row, int col) {
+        return POSITIONS[(row - 1) * 8 + (col - 1)];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
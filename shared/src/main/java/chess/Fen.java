@@ -0,0 +1,132 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ */
+public final class Fen {
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "kqbnrp";
+    // In the bit order of the BitboardPosition castling flags
+    private static final String CASTLING_LETTERS = "KQkq";
+
+    private Fen() {
+    }
+
+    /**
+     * Builds a game from a FEN string
+     *
+     * @param fen the position in FEN
+     * @return a game set up in that position
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("FEN needs 8 rows: " + fen);
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : rows[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || col > 8) {
+                    throw new IllegalArgumentException("Bad FEN row " + rows[i] + ": " + fen);
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, ChessPiece.PieceType.values()[type]));
+                col++;
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(fields.length > 1 && fields[1].equals("b") ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        if (fields.length > 2) {
+            int castling = 0;
+            for (char c : fields[2].toCharArray()) {
+                int right = CASTLING_LETTERS.indexOf(c);
+                if (right >= 0) {
+                    castling |= 1 << right;
+                } else if (c != '-') {
+                    throw new IllegalArgumentException("Bad FEN castling rights " + fields[2] + ": " + fen);
+                }
+            }
+            ChessPosition enPassant = null;
+            if (fields.length > 3 && !fields[3].equals("-")) {
+                enPassant = parseSquare(fields[3], fen);
+            }
+            game.setRights(castling, enPassant);
+        }
+        if (fields.length > 4) {
+            try {
+                game.setHalfmoveClock(Integer.parseInt(fields[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad FEN halfmove clock " + fields[4] + ": " + fen);
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Writes a game's current position as FEN
+     *
+     * @param game the game to describe
+     * @return the position in FEN
+     */
+    public static String toFen(ChessGame game) {
+        BitboardPosition position = game.getPosition();
+        StringBuilder fen = new StringBuilder();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                int piece = position.pieceAt(BitboardPosition.square(row, col));
+                if (piece == BitboardPosition.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(BitboardPosition.typeOf(piece));
+                fen.append(BitboardPosition.colorOf(piece) == BitboardPosition.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int castling = position.castlingRights();
+        for (int right = 0; right < 4; right++) {
+            if ((castling & 1 << right) != 0) {
+                fen.append(CASTLING_LETTERS.charAt(right));
+            }
+        }
+        if (castling == 0) {
+            fen.append('-');
+        }
+        int enPassant = position.enPassantSquare();
+        fen.append(' ').append(enPassant == BitboardPosition.EMPTY ? "-" : Move.squareName(enPassant));
+        return fen.append(' ').append(game.getHalfmoveClock()).append(" 1").toString();
+    }
+
+    private static ChessPosition parseSquare(String name, String fen) {
+        if (name.length() != 2 || name.charAt(0) < 'a' || name.charAt(0) > 'h' ||
+                name.charAt(1) < '1' || name.charAt(1) > '8') {
+            throw new IllegalArgumentException("Bad FEN square " + name + ": " + fen);
+        }
+        return ChessPosition.of(name.charAt(1) - '0', name.charAt(0) - 'a' + 1);
+    }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+/**
+ * Helpers for moves packed into a single int, so move generation and search
+ * never allocate.
+ * <p>
+ * Bits 0-5 hold the from square, bits 6-11 the to square, bits 12-14 the
+ * promotion piece type plus one (zero for no promotion) and the bits above
+ * that the move flags.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int CASTLE = 1 << 18;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    /**
+     * @param from      the square index the piece moves from
+     * @param to        the square index the piece moves to
+     * @param promotion the piece type a pawn promotes to, or {@link BitboardPosition#EMPTY}
+     * @param flags     any of the flag bits in this class
+     * @return the packed move
+     */
+    public static int of(int from, int to, int promotion, int flags) {
+        return from | to << 6 | (promotion + 1) << 12 | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the piece type a pawn promotes to, or {@link BitboardPosition#EMPTY}
+     */
+    public static int promotion(int move) {
+        return ((move >>> 12) & 7) - 1;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * Materializes a packed move as the public move type
+     *
+     * @param move the packed move
+     * @return the shared {@link ChessMove} instance for it
+     */
+    public static ChessMove toChessMove(int move) {
+        int promotion = promotion(move);
+        return ChessMove.of(from(move), to(move),
+                promotion == BitboardPosition.EMPTY ? null : TYPES[promotion]);
+    }
+
+    /**
+     * @return the move in coordinate notation, such as e2e4 or e7e8q
+     */
+    public static String toString(int move) {
+        StringBuilder text = new StringBuilder()
+                .append(squareName(from(move)))
+                .append(squareName(to(move)));
+        if (promotion(move) != BitboardPosition.EMPTY) {
+            text.append("kqbnrp".charAt(promotion(move)));
+        }
+        return text.toString();
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+}
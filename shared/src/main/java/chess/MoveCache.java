@@ -0,0 +1,173 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A size-bounded cache of legal destination squares, keyed by a position's
+ * Zobrist key plus the square of the piece being moved.
+ * <p>
+ * Entries live in parallel primitive arrays and are evicted with the CLOCK
+ * policy: a hit sets an entry's reference bit, and the clock hand clears
+ * reference bits until it finds an entry that has not been used since its
+ * last pass. Lookups go through an open-addressed index, so neither hits nor
+ * misses allocate. All methods are synchronized so one cache can be shared
+ * across threads.
+ */
+public final class MoveCache {
+    /**
+     * Returned by {@link #get(long, int)} when the cache holds no entry
+     */
+    public static final long MISS = -1L;
+
+    private final int capacity;
+    private final long[] keys;
+    private final int[] squares;
+    private final long[] targets;
+    private final boolean[] referenced;
+    // Open-addressed index of slot + 1, 0 marks a free bucket
+    private final int[] index;
+    private final int mask;
+    private int size;
+    private int hand;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity the most entries the cache holds before it starts evicting
+     */
+    public MoveCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        keys = new long[capacity];
+        squares = new int[capacity];
+        targets = new long[capacity];
+        referenced = new boolean[capacity];
+        int buckets = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        index = new int[buckets];
+        mask = buckets - 1;
+    }
+
+    /**
+     * Looks up the legal destination squares of the piece on a square
+     *
+     * @param key    the Zobrist key of the position
+     * @param square the square index of the piece
+     * @return the set of destination squares, or {@link #MISS}
+     */
+    public synchronized long get(long key, int square) {
+        int slot = find(key, square);
+        if (slot < 0) {
+            misses++;
+            return MISS;
+        }
+        hits++;
+        referenced[slot] = true;
+        return targets[slot];
+    }
+
+    /**
+     * Stores the legal destination squares of the piece on a square, evicting an
+     * entry if the cache is full
+     *
+     * @param key     the Zobrist key of the position
+     * @param square  the square index of the piece
+     * @param squares the set of destination squares
+     */
+    public synchronized void put(long key, int square, long squares) {
+        int slot = find(key, square);
+        if (slot < 0) {
+            if (size < capacity) {
+                slot = size++;
+            } else {
+                slot = evict();
+            }
+            keys[slot] = key;
+            this.squares[slot] = square;
+            int bucket = home(key, square);
+            while (index[bucket] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            index[bucket] = slot + 1;
+        }
+        targets[slot] = squares;
+        referenced[slot] = false;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(index, 0);
+        Arrays.fill(referenced, false);
+        size = 0;
+        hand = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private int find(long key, int square) {
+        for (int bucket = home(key, square); index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = index[bucket] - 1;
+            if (keys[slot] == key && squares[slot] == square) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Advances the clock hand to the first unreferenced entry and unlinks it from the index
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = hand + 1 == capacity ? 0 : hand + 1;
+        }
+        int slot = hand;
+        hand = hand + 1 == capacity ? 0 : hand + 1;
+
+        int bucket = home(keys[slot], squares[slot]);
+        while (index[bucket] != slot + 1) {
+            bucket = (bucket + 1) & mask;
+        }
+        // Shift later entries of the probe run back so lookups never stop at the hole
+        for (int next = (bucket + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+            int moved = index[next] - 1;
+            int want = home(keys[moved], squares[moved]);
+            if (((next - want) & mask) >= ((next - bucket) & mask)) {
+                index[bucket] = index[next];
+                bucket = next;
+            }
+        }
+        index[bucket] = 0;
+        return slot;
+    }
+
+    private int home(long key, int square) {
+        long h = (key ^ square) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        return "MoveCache{" +
+                "size=" + size() +
+                ", capacity=" + capacity +
+                ", hits=" + hits() +
+                ", misses=" + misses() +
+                '}';
+    }
+}
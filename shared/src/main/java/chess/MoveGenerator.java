@@ -0,0 +1,342 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Legal move generator for one side of a position.
+ * <p>
+ * The pinned pieces and the check-evasion mask are worked out once when the
+ * generator is built, so every move it returns is legal without playing it out:
+ * a pinned piece stays on the line through its king, and while in check every
+ * non-king move must capture the checker or block its ray. En passant, which
+ * takes a pawn off a square other than its destination, and castling, which
+ * may not pass through an attacked square, are checked on their own.
+ */
+public final class MoveGenerator {
+    private final BitboardPosition position;
+    private final int us;
+    private final int kingSquare;
+    private final long checkers;
+    private final long checkMask;
+    private final long pinned;
+
+    /**
+     * @param position the position to generate moves in
+     * @param color    the ordinal of the team to generate moves for
+     */
+    public MoveGenerator(BitboardPosition position, int color) {
+        this.position = position;
+        this.us = color;
+        this.kingSquare = position.kingSquare(color);
+        if (kingSquare == BitboardPosition.EMPTY) {
+            checkers = 0;
+            checkMask = -1L;
+            pinned = 0;
+            return;
+        }
+
+        long occupied = position.occupied();
+        long enemies = position.color(color ^ 1);
+        checkers = position.attackersTo(kingSquare, occupied) & enemies;
+        if (checkers == 0) {
+            checkMask = -1L;
+        } else if ((checkers & (checkers - 1)) == 0) {
+            checkMask = checkers | Bitboards.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        } else {
+            checkMask = 0;  // Double check, only the king may move
+        }
+
+        int them = (color ^ 1) * 6;
+        long queens = position.pieces(them + BitboardPosition.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, 0) & (position.pieces(them + BitboardPosition.ROOK) | queens)) |
+                (Bitboards.bishopAttacks(kingSquare, 0) & (position.pieces(them + BitboardPosition.BISHOP) | queens));
+        long pins = 0;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Bitboards.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pins |= blockers & position.color(color);
+            }
+        }
+        pinned = pins;
+    }
+
+    /**
+     * @return True if the side to generate for is in check
+     */
+    public boolean inCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * @return the set of enemy pieces giving check
+     */
+    public long checkers() {
+        return checkers;
+    }
+
+    /**
+     * @return the set of own pieces pinned to the king
+     */
+    public long pinned() {
+        return pinned;
+    }
+
+    /**
+     * Gets every square the piece on a square can legally move to
+     *
+     * @param from the square index of one of the generating side's pieces
+     * @return the set of legal destination squares, empty if the square does not
+     * hold one of the generating side's pieces
+     */
+    public long legalTargets(int from) {
+        int piece = position.pieceAt(from);
+        if (piece == BitboardPosition.EMPTY || BitboardPosition.colorOf(piece) != us) {
+            return 0;
+        }
+        if (from == kingSquare) {
+            return kingTargets();
+        }
+        long targets = pseudoTargets(position, piece, from) & checkMask;
+        if ((pinned & (1L << from)) != 0) {
+            targets &= Bitboards.line(kingSquare, from);
+        }
+        int enPassant = enPassantSquare();
+        if (enPassant != BitboardPosition.EMPTY && BitboardPosition.typeOf(piece) == BitboardPosition.PAWN &&
+                (Bitboards.pawnAttacks(us, from) & (1L << enPassant)) != 0 && isEnPassantLegal(from, enPassant)) {
+            targets |= 1L << enPassant;
+        }
+        return targets;
+    }
+
+    // Only the side to move may capture en passant; the other side's generator never sees the square
+    private int enPassantSquare() {
+        return us == position.sideToMove() ? position.enPassantSquare() : BitboardPosition.EMPTY;
+    }
+
+    // Plays out the occupancy change, since the two pawns leave the same row and may uncover a slider
+    private boolean isEnPassantLegal(int from, int to) {
+        if (kingSquare == BitboardPosition.EMPTY) {
+            return true;
+        }
+        long victim = 1L << ((from & ~7) | (to & 7));
+        long occupied = (position.occupied() ^ (1L << from) ^ victim) | (1L << to);
+        int them = (us ^ 1) * 6;
+        long queens = position.pieces(them + BitboardPosition.QUEEN);
+        long leapers = position.pieces(them + BitboardPosition.KNIGHT) | position.pieces(them + BitboardPosition.PAWN);
+        return (checkers & leapers & ~victim) == 0 &&
+                (Bitboards.rookAttacks(kingSquare, occupied) & (position.pieces(them + BitboardPosition.ROOK) | queens)) == 0 &&
+                (Bitboards.bishopAttacks(kingSquare, occupied) & (position.pieces(them + BitboardPosition.BISHOP) | queens)) == 0;
+    }
+
+    /**
+     * @return True if the generating side has at least one legal move
+     */
+    public boolean hasLegalMove() {
+        if (kingSquare != BitboardPosition.EMPTY && kingTargets() != 0) {
+            return true;
+        }
+        for (long own = position.color(us); own != 0; own &= own - 1) {
+            int from = Long.numberOfTrailingZeros(own);
+            if (from != kingSquare && legalTargets(from) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if a packed move, such as one remembered from another search
+     * node, is legal here
+     *
+     * @param move the packed move
+     * @return True if the generating side may play it
+     */
+    public boolean isLegal(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = position.pieceAt(from);
+        if (piece == BitboardPosition.EMPTY || BitboardPosition.colorOf(piece) != us ||
+                (legalTargets(from) & (1L << to)) == 0) {
+            return false;
+        }
+        boolean promotes = BitboardPosition.typeOf(piece) == BitboardPosition.PAWN &&
+                ((1L << to) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0;
+        return promotes == (Move.promotion(move) != BitboardPosition.EMPTY);
+    }
+
+    /**
+     * Rebuilds a packed move from another search node with the flags it has
+     * here, since the same squares can be a double push there and a rook move
+     * here. Only meaningful for moves {@link #isLegal(int)} accepts.
+     *
+     * @param move the packed move
+     * @return the move as {@link #generate(MoveList)} would produce it
+     */
+    public int withFlags(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean pawn = BitboardPosition.typeOf(position.pieceAt(from)) == BitboardPosition.PAWN;
+        return Move.of(from, to, Move.promotion(move),
+                flags(from, to, pawn, position.color(us ^ 1), enPassantSquare()));
+    }
+
+    /**
+     * Appends every legal move of the generating side to a list
+     *
+     * @param moves the list to append packed moves to
+     */
+    public void generate(MoveList moves) {
+        generate(moves, true, true);
+    }
+
+    /**
+     * Appends the legal captures and promotions of the generating side to a list
+     *
+     * @param moves the list to append packed moves to
+     */
+    public void generateCaptures(MoveList moves) {
+        generate(moves, true, false);
+    }
+
+    /**
+     * Appends the legal moves that neither capture nor promote to a list
+     *
+     * @param moves the list to append packed moves to
+     */
+    public void generateQuiets(MoveList moves) {
+        generate(moves, false, true);
+    }
+
+    private void generate(MoveList moves, boolean captures, boolean quiets) {
+        long enemies = position.color(us ^ 1);
+        int enPassant = enPassantSquare();
+        long tactical = enemies | (enPassant == BitboardPosition.EMPTY ? 0 : 1L << enPassant);
+        for (long own = position.color(us); own != 0; own &= own - 1) {
+            int from = Long.numberOfTrailingZeros(own);
+            boolean pawn = BitboardPosition.typeOf(position.pieceAt(from)) == BitboardPosition.PAWN;
+            long targets = legalTargets(from);
+            long mask = pawn ? tactical | Bitboards.RANK_1 | Bitboards.RANK_8 : tactical;
+            if (!captures) {
+                targets &= ~mask;
+            }
+            if (!quiets) {
+                targets &= mask;
+            }
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int flags = flags(from, to, pawn, enemies, enPassant);
+                if (pawn && ((1L << to) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+                    moves.add(Move.of(from, to, BitboardPosition.QUEEN, flags));
+                    moves.add(Move.of(from, to, BitboardPosition.KNIGHT, flags));
+                    moves.add(Move.of(from, to, BitboardPosition.ROOK, flags));
+                    moves.add(Move.of(from, to, BitboardPosition.BISHOP, flags));
+                } else {
+                    moves.add(Move.of(from, to, BitboardPosition.EMPTY, flags));
+                }
+            }
+        }
+    }
+
+    private int flags(int from, int to, boolean pawn, long enemies, int enPassant) {
+        int flags = (enemies & (1L << to)) != 0 ? Move.CAPTURE : 0;
+        if (pawn && (to - from == 16 || from - to == 16)) {
+            flags |= Move.DOUBLE_PUSH;
+        } else if (pawn && to == enPassant) {
+            flags |= Move.CAPTURE | Move.EN_PASSANT;
+        } else if (from == kingSquare && (to - from == 2 || from - to == 2)) {
+            flags |= Move.CASTLE;
+        }
+        return flags;
+    }
+
+    // The king is lifted off the board so sliders checking it also cover the squares behind it
+    private long kingTargets() {
+        long occupied = position.occupied() ^ (1L << kingSquare);
+        long targets = Bitboards.kingAttacks(kingSquare) & ~position.color(us);
+        long safe = 0;
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (!position.isSquareAttacked(to, us ^ 1, occupied)) {
+                safe |= 1L << to;
+            }
+        }
+        int rights = position.castlingRights() >>> (2 * us);
+        if ((rights & 3) != 0 && checkers == 0) {
+            if ((rights & 1) != 0 && canCastle(kingSquare + 3, kingSquare + 1, kingSquare + 2)) {
+                safe |= 1L << (kingSquare + 2);
+            }
+            if ((rights & 2) != 0 && canCastle(kingSquare - 4, kingSquare - 1, kingSquare - 2)) {
+                safe |= 1L << (kingSquare - 2);
+            }
+        }
+        return safe;
+    }
+
+    // The rights say the king and rook have not moved; the rook must still be there,
+    // with nothing between them and neither square the king crosses attacked
+    private boolean canCastle(int rookSquare, int crossed, int destination) {
+        int home = us == BitboardPosition.WHITE ? 4 : 60;
+        return kingSquare == home &&
+                position.pieceAt(rookSquare) == us * 6 + BitboardPosition.ROOK &&
+                (Bitboards.between(kingSquare, rookSquare) & position.occupied()) == 0 &&
+                !position.isSquareAttacked(crossed, us ^ 1) &&
+                !position.isSquareAttacked(destination, us ^ 1);
+    }
+
+    /**
+     * Gets every square a piece could move to, ignoring whether the move leaves
+     * its own king in danger
+     *
+     * @param position the position the piece stands in
+     * @param piece    the {@link BitboardPosition} piece index
+     * @param from     the square the piece stands on
+     * @return the set of destination squares
+     */
+    public static long pseudoTargets(BitboardPosition position, int piece, int from) {
+        int color = BitboardPosition.colorOf(piece);
+        long occupied = position.occupied();
+        if (BitboardPosition.typeOf(piece) != BitboardPosition.PAWN) {
+            return Bitboards.attacks(piece, from, occupied) & ~position.color(color);
+        }
+
+        long empty = ~occupied;
+        long pawn = 1L << from;
+        // White pawns move up, Black pawns move down
+        long forwardOne = (color == BitboardPosition.WHITE ? pawn << 8 : pawn >>> 8) & empty;
+        long targets = forwardOne;
+        // Initial two-square move for pawns
+        long startRank = color == BitboardPosition.WHITE ? Bitboards.RANK_1 << 8 : Bitboards.RANK_8 >>> 8;
+        if ((pawn & startRank) != 0) {
+            targets |= (color == BitboardPosition.WHITE ? forwardOne << 8 : forwardOne >>> 8) & empty;
+        }
+        // Capture diagonally
+        return targets | (Bitboards.pawnAttacks(color, from) & position.color(color ^ 1));
+    }
+
+    /**
+     * Turns a set of destination squares into moves, expanding pawn moves to the
+     * last rank into one move per promotion piece
+     *
+     * @param startPosition the square the piece moves from
+     * @param targets       the set of destination squares
+     * @param pawn          whether the moving piece is a pawn
+     * @return the moves
+     */
+    public static Collection<ChessMove> toMoves(ChessPosition startPosition, long targets, boolean pawn) {
+        int from = BitboardPosition.square(startPosition);
+        Collection<ChessMove> moves = new ArrayList<>(Long.bitCount(targets));
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (pawn && ((1L << to) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+                moves.add(ChessMove.of(from, to, ChessPiece.PieceType.QUEEN));
+                moves.add(ChessMove.of(from, to, ChessPiece.PieceType.KNIGHT));
+                moves.add(ChessMove.of(from, to, ChessPiece.PieceType.BISHOP));
+                moves.add(ChessMove.of(from, to, ChessPiece.PieceType.ROOK));
+            } else {
+                moves.add(ChessMove.of(from, to, null));
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,90 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. The counts for
+ * well-known positions are published, so comparing against them checks the move
+ * generator, and timing the count measures its speed.
+ * <p>
+ * Run with {@code java chess.Perft <depth> [fen]} to print the count for every
+ * root move (divide), the total and the nodes per second.
+ */
+public final class Perft {
+    private final BitboardPosition position;
+    private final MoveList[] moveLists = new MoveList[64];
+
+    /**
+     * @param game the game whose current position to count from; its board is
+     *             used in place and left as it was found
+     */
+    public Perft(ChessGame game) {
+        position = game.getPosition();
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * @param depth the number of plies to search
+     * @return the number of leaf nodes at that depth
+     */
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = moveLists[depth];
+        moves.clear();
+        new MoveGenerator(position, position.sideToMove()).generate(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            nodes += perft(depth - 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Splits the perft count by root move, which narrows a wrong total down to
+     * the move whose subtree is off
+     *
+     * @param depth the number of plies to search, at least 1
+     * @return the leaf count below each root move, in coordinate notation
+     */
+    public Map<String, Long> divide(int depth) {
+        MoveList moves = new MoveList();
+        new MoveGenerator(position, position.sideToMove()).generate(moves);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            counts.put(Move.toString(moves.get(i)), perft(depth - 1));
+            position.unmakeMove();
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java chess.Perft <depth> [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : Fen.START;
+        Perft perft = new Perft(Fen.parse(fen));
+
+        long start = System.nanoTime();
+        long total = 0;
+        for (Map.Entry<String, Long> entry : perft.divide(depth).entrySet()) {
+            System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%nNodes: %d%nTime: %.3f s%nNodes/second: %.0f%n", total, seconds, total / seconds);
+    }
+}
@@ -0,0 +1,151 @@
+package chess;
+
+/**
+ * Middlegame and endgame values of every piece on every square, material
+ * included, in centipawns from White's point of view. {@link BitboardPosition}
+ * keeps running totals of these as pieces are put and removed, so evaluating a
+ * position never has to look at the board.
+ * <p>
+ * The tables below are laid out the way the board is drawn, a8 first, for a
+ * White piece; Black pieces read them with the rows mirrored.
+ */
+public final class PieceSquareTables {
+    /**
+     * Weight of each piece type in the game phase, indexed by {@link BitboardPosition} type
+     */
+    public static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+    /**
+     * The phase of a position with all pieces still on the board
+     */
+    public static final int MAX_PHASE = 24;
+    /**
+     * Plain material values for ordering and exchanging captures, indexed by
+     * {@link BitboardPosition} type; the king has none
+     */
+    public static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private static final int[] MIDDLEGAME_VALUES = {0, 1025, 365, 337, 477, 82};
+    private static final int[] ENDGAME_VALUES = {0, 936, 297, 281, 512, 94};
+
+    private static final int[][] MIDDLEGAME_TABLES = {
+            {   // King
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20},
+            {   // Queen
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20},
+            {   // Bishop
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20},
+            {   // Knight
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50},
+            {   // Rook
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0},
+            {   // Pawn
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0}
+    };
+
+    private static final int[][] ENDGAME_TABLES = {
+            {   // King
+                    -50, -40, -30, -20, -20, -30, -40, -50,
+                    -30, -20, -10, 0, 0, -10, -20, -30,
+                    -30, -10, 20, 30, 30, 20, -10, -30,
+                    -30, -10, 30, 40, 40, 30, -10, -30,
+                    -30, -10, 30, 40, 40, 30, -10, -30,
+                    -30, -10, 20, 30, 30, 20, -10, -30,
+                    -30, -30, 0, 0, 0, 0, -30, -30,
+                    -50, -30, -30, -30, -30, -30, -30, -50},
+            MIDDLEGAME_TABLES[BitboardPosition.QUEEN],
+            MIDDLEGAME_TABLES[BitboardPosition.BISHOP],
+            MIDDLEGAME_TABLES[BitboardPosition.KNIGHT],
+            MIDDLEGAME_TABLES[BitboardPosition.ROOK],
+            {   // Pawn
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    80, 80, 80, 80, 80, 80, 80, 80,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    30, 30, 30, 30, 30, 30, 30, 30,
+                    20, 20, 20, 20, 20, 20, 20, 20,
+                    10, 10, 10, 10, 10, 10, 10, 10,
+                    10, 10, 10, 10, 10, 10, 10, 10,
+                    0, 0, 0, 0, 0, 0, 0, 0}
+    };
+
+    // Signed values indexed by BitboardPosition piece and square: positive for White
+    private static final int[][] MIDDLEGAME = new int[BitboardPosition.PIECE_KINDS][64];
+    private static final int[][] ENDGAME = new int[BitboardPosition.PIECE_KINDS][64];
+
+    static {
+        for (int type = BitboardPosition.KING; type <= BitboardPosition.PAWN; type++) {
+            for (int square = 0; square < 64; square++) {
+                // Row 8 is drawn first, so White reads the table upside down and Black as drawn
+                MIDDLEGAME[type][square] = MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][square ^ 56];
+                ENDGAME[type][square] = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][square ^ 56];
+                MIDDLEGAME[6 + type][square] = -(MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][square]);
+                ENDGAME[6 + type][square] = -(ENDGAME_VALUES[type] + ENDGAME_TABLES[type][square]);
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    /**
+     * @return the middlegame value of a piece on a square, negative for Black pieces
+     */
+    public static int middlegame(int piece, int square) {
+        return MIDDLEGAME[piece][square];
+    }
+
+    /**
+     * @return the endgame value of a piece on a square, negative for Black pieces
+     */
+    public static int endgame(int piece, int square) {
+        return ENDGAME[piece][square];
+    }
+
+    /**
+     * @return the contribution of a piece to the game phase
+     */
+    public static int phase(int piece) {
+        return PHASE_WEIGHTS[BitboardPosition.typeOf(piece)];
+    }
+}
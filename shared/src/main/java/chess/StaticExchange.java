@@ -0,0 +1,108 @@
+package chess;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once both
+ * sides have made every recapture on its square that pays for them. It works
+ * from {@link BitboardPosition#attackersTo(int, long)} alone, lifting each
+ * capturing piece off a copy of the occupancy so sliders lined up behind it
+ * join in, and never makes or unmakes a move.
+ * <p>
+ * Checks, pins and threats elsewhere on the board are ignored, so the result is
+ * an estimate; it is exact for the common case of a plain exchange of pieces.
+ */
+public final class StaticExchange {
+    // The king is worth more than everything else together, so it only ever captures last
+    private static final int KING_VALUE = 20000;
+    private static final int[] VALUES = PieceSquareTables.PIECE_VALUES.clone();
+
+    static {
+        VALUES[BitboardPosition.KING] = KING_VALUE;
+    }
+
+    // Least valuable first
+    private static final int[] CAPTURE_ORDER = {
+            BitboardPosition.PAWN, BitboardPosition.KNIGHT, BitboardPosition.BISHOP,
+            BitboardPosition.ROOK, BitboardPosition.QUEEN, BitboardPosition.KING
+    };
+
+    private StaticExchange() {
+    }
+
+    /**
+     * Evaluates the exchange a move starts on its destination square
+     *
+     * @param position the position the move is played in
+     * @param move     a packed move for the side to move there
+     * @return the material the moving side gains in centipawns, negative if it loses
+     * material and zero for a quiet move to a safe square
+     */
+    public static int see(BitboardPosition position, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int moved = position.pieceAt(from);
+        int us = BitboardPosition.colorOf(moved);
+        int promotion = Move.promotion(move);
+        long occupied = position.occupied() ^ (1L << from);
+
+        int gain;
+        int victim = position.pieceAt(to);
+        if (victim != BitboardPosition.EMPTY) {
+            gain = VALUES[BitboardPosition.typeOf(victim)];
+        } else if (BitboardPosition.typeOf(moved) == BitboardPosition.PAWN && to == position.enPassantSquare()) {
+            gain = VALUES[BitboardPosition.PAWN];
+            occupied ^= 1L << ((from & ~7) | (to & 7));
+        } else {
+            gain = 0;
+        }
+        // The piece now standing on the square, which the next capture takes
+        int standing = BitboardPosition.typeOf(moved);
+        if (promotion != BitboardPosition.EMPTY) {
+            gain += VALUES[promotion] - VALUES[BitboardPosition.PAWN];
+            standing = promotion;
+        }
+
+        // The exchange is a line of nodes where the side to capture may instead stop,
+        // so it is searched forward with an alpha-beta window on the balance rather
+        // than by folding a list of gains back up. The moving side is maximizing.
+        int alpha = Integer.MIN_VALUE;
+        int beta = Integer.MAX_VALUE;
+        int balance = gain;
+        int side = us ^ 1;
+        long attackers = position.attackersTo(to, occupied) & occupied;
+        while (true) {
+            if (side == us) {
+                alpha = Math.max(alpha, balance);
+            } else {
+                beta = Math.min(beta, balance);
+            }
+            if (alpha >= beta) {
+                return side == us ? beta : alpha;
+            }
+            long ours = attackers & position.color(side);
+            int type = BitboardPosition.KING;
+            long attacker = 0;
+            for (int candidate : CAPTURE_ORDER) {
+                attacker = ours & position.pieces(side * 6 + candidate);
+                if (attacker != 0) {
+                    type = candidate;
+                    break;
+                }
+            }
+            attacker &= -attacker;
+            // The king may not capture onto a square the other side still attacks
+            if (ours == 0 || (type == BitboardPosition.KING && (attackers & position.color(side ^ 1)) != 0)) {
+                return side == us ? alpha : beta;
+            }
+            int captured = VALUES[standing];
+            standing = type;
+            if (type == BitboardPosition.PAWN && ((1L << to) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+                captured += VALUES[BitboardPosition.QUEEN] - VALUES[BitboardPosition.PAWN];
+                standing = BitboardPosition.QUEEN;
+            }
+            balance += side == us ? captured : -captured;
+            occupied ^= attacker;
+            attackers = position.attackersTo(to, occupied) & occupied;
+            side ^= 1;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package chess;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of the keys
+ * for every piece on its square, the side to move, the castling rights and the
+ * en passant file, so each change to the position updates it with one XOR.
+ * <p>
+ * The keys come from a fixed seed, so they are identical on every run and keys
+ * can be stored or compared across processes.
+ */
+public final class Zobrist {
+    private static final long[][] PIECE_SQUARE = new long[BitboardPosition.PIECE_KINDS][64];
+    private static final long SIDE;
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                seed = next(seed);
+                squares[square] = mix(seed);
+            }
+        }
+        seed = next(seed);
+        SIDE = mix(seed);
+        for (int rights = 1; rights < 16; rights++) {
+            seed = next(seed);
+            CASTLING[rights] = mix(seed);
+        }
+        for (int file = 0; file < 8; file++) {
+            seed = next(seed);
+            EN_PASSANT_FILE[file] = mix(seed);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int piece, int square) {
+        return PIECE_SQUARE[piece][square];
+    }
+
+    /**
+     * @return the key XORed in while black is to move
+     */
+    public static long side() {
+        return SIDE;
+    }
+
+    /**
+     * @param rights a 4-bit set of castling rights
+     * @return the key for that set, zero when no rights remain
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @param file the file of the en passant target square, 0 for the a-file
+     */
+    public static long enPassant(int file) {
+        return EN_PASSANT_FILE[file];
+    }
+
+    private static long next(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,27 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position in centipawns.
+ */
+public final class Evaluation {
+    private Evaluation() {
+    }
+
+    /**
+     * Blends the middlegame and endgame piece-square totals by how much material
+     * is left. The totals are kept up to date by every put, remove, make and
+     * unmake, so this is a few arithmetic operations.
+     *
+     * @param position the position to evaluate
+     * @return the score from the point of view of the side to move
+     */
+    public static int evaluate(BitboardPosition position) {
+        int phase = Math.min(position.phase(), PieceSquareTables.MAX_PHASE);
+        int score = (position.middlegameScore() * phase +
+                position.endgameScore() * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return position.sideToMove() == BitboardPosition.WHITE ? score : -score;
+    }
+}
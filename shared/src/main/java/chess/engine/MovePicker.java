@@ -0,0 +1,239 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.PieceSquareTables;
+import chess.StaticExchange;
+
+/**
+ * Hands out the moves of one search node in stages, generating each stage only
+ * when the one before it is used up:
+ * <ol>
+ *     <li>the hash move</li>
+ *     <li>winning and equal captures and promotions, most valuable victim first</li>
+ *     <li>the two killer moves of this ply</li>
+ *     <li>quiet moves, highest history score first</li>
+ *     <li>losing captures</li>
+ * </ol>
+ * A node that is cut off by the hash move or an early capture never generates
+ * its quiet moves at all. Captures are split into good and losing ones by
+ * {@link StaticExchange}. In quiescence search a picker hands out only the
+ * captures that do not lose material and queen promotions, unless the side to
+ * move is in check, when every move is needed. Each search ply reuses one picker.
+ */
+final class MovePicker {
+    private static final int HASH = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int GENERATE_QUIETS = 4;
+    private static final int QUIETS = 5;
+    private static final int BAD_CAPTURES = 6;
+    private static final int DONE = 7;
+
+    private final MoveList captures = new MoveList();
+    private final MoveList quiets = new MoveList();
+    private final MoveList badCaptures = new MoveList();
+    private int[] scores = new int[256];
+    // Indexed by piece and destination square, raised by quiet moves that cause cutoffs
+    private final int[][] history;
+
+    private BitboardPosition position;
+    private MoveGenerator generator;
+    private int hashMove;
+    private int killer1;
+    private int killer2;
+    private int stage;
+    private int index;
+    private boolean quiescence;
+
+    /**
+     * @param history the searcher's history table, shared by every ply
+     */
+    MovePicker(int[][] history) {
+        this.history = history;
+    }
+
+    /**
+     * Starts over for a new node
+     *
+     * @param position  the position at the node
+     * @param generator a generator for the side to move
+     * @param hashMove  the move to try first, or {@link Move#NONE}; it may be illegal here
+     * @param killer1   a quiet move that caused a cutoff at this ply, or {@link Move#NONE}
+     * @param killer2   another such move, or {@link Move#NONE}
+     */
+    void init(BitboardPosition position, MoveGenerator generator, int hashMove, int killer1, int killer2) {
+        this.position = position;
+        this.generator = generator;
+        this.hashMove = hashMove;
+        this.killer1 = killer1;
+        this.killer2 = killer2;
+        quiescence = false;
+        stage = HASH;
+    }
+
+    /**
+     * Starts over for a quiescence search node, which only tries captures that
+     * do not lose material, unless the side to move is in check
+     *
+     * @param position  the position at the node
+     * @param generator a generator for the side to move
+     */
+    void initQuiescence(BitboardPosition position, MoveGenerator generator) {
+        init(position, generator, Move.NONE, Move.NONE, Move.NONE);
+        quiescence = !generator.inCheck();
+    }
+
+    /**
+     * @return the next legal move, or {@link Move#NONE} once every move has been handed out
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case HASH -> {
+                    stage = GENERATE_CAPTURES;
+                    // Stored moves carry the flags of the node they came from
+                    hashMove = hashMove != Move.NONE && generator.isLegal(hashMove) ?
+                            generator.withFlags(hashMove) : Move.NONE;
+                    if (hashMove != Move.NONE) {
+                        return hashMove;
+                    }
+                }
+                case GENERATE_CAPTURES -> {
+                    captures.clear();
+                    badCaptures.clear();
+                    generator.generateCaptures(captures);
+                    ensureScores(captures.size());
+                    for (int i = 0; i < captures.size(); i++) {
+                        scores[i] = mvvLva(captures.get(i));
+                    }
+                    index = 0;
+                    stage = GOOD_CAPTURES;
+                }
+                case GOOD_CAPTURES -> {
+                    while (index < captures.size()) {
+                        int move = pickBest(captures, index++);
+                        if (move == hashMove) {
+                            continue;
+                        }
+                        if (quiescence) {
+                            int promotion = Move.promotion(move);
+                            if ((promotion != BitboardPosition.EMPTY && promotion != BitboardPosition.QUEEN) || isLosing(move)) {
+                                continue;
+                            }
+                        } else if (isLosing(move)) {
+                            badCaptures.add(move);
+                            continue;
+                        }
+                        return move;
+                    }
+                    index = 0;
+                    stage = quiescence ? DONE : KILLERS;
+                }
+                case KILLERS -> {
+                    while (index < 2) {
+                        int killer = index == 0 ? killer1 : killer2;
+                        killer = killer != Move.NONE && position.pieceAt(Move.to(killer)) == BitboardPosition.EMPTY &&
+                                generator.isLegal(killer) ? generator.withFlags(killer) : Move.NONE;
+                        // Keep the rebuilt move so the quiet stage skips exactly what was handed out
+                        if (index++ == 0) {
+                            killer1 = killer;
+                        } else {
+                            killer2 = killer;
+                        }
+                        if (killer != Move.NONE && killer != hashMove) {
+                            return killer;
+                        }
+                    }
+                    stage = GENERATE_QUIETS;
+                }
+                case GENERATE_QUIETS -> {
+                    quiets.clear();
+                    generator.generateQuiets(quiets);
+                    ensureScores(quiets.size());
+                    for (int i = 0; i < quiets.size(); i++) {
+                        int move = quiets.get(i);
+                        scores[i] = history[position.pieceAt(Move.from(move))][Move.to(move)];
+                    }
+                    index = 0;
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    while (index < quiets.size()) {
+                        int move = pickBest(quiets, index++);
+                        if (move != hashMove && move != killer1 && move != killer2) {
+                            return move;
+                        }
+                    }
+                    index = 0;
+                    stage = BAD_CAPTURES;
+                }
+                case BAD_CAPTURES -> {
+                    if (index < badCaptures.size()) {
+                        return badCaptures.get(index++);
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if the move is a capture or promotion rather than a quiet move
+     */
+    static boolean isTactical(int move) {
+        return Move.isCapture(move) || Move.promotion(move) != BitboardPosition.EMPTY;
+    }
+
+    private int mvvLva(int move) {
+        int victim = position.pieceAt(Move.to(move));
+        // En passant leaves the destination empty; quiet promotions capture nothing
+        int victimValue = victim == BitboardPosition.EMPTY ?
+                (Move.isCapture(move) ? PieceSquareTables.PIECE_VALUES[BitboardPosition.PAWN] : 0) :
+                PieceSquareTables.PIECE_VALUES[BitboardPosition.typeOf(victim)];
+        int attacker = BitboardPosition.typeOf(position.pieceAt(Move.from(move)));
+        int promotion = Move.promotion(move);
+        int promotionValue = promotion == BitboardPosition.EMPTY ? 0 : PieceSquareTables.PIECE_VALUES[promotion];
+        return (victimValue + promotionValue) * 16 - PieceSquareTables.PIECE_VALUES[attacker] / 100;
+    }
+
+    // Taking a piece worth at least the capturer cannot lose material, so only the rest need an exchange
+    private boolean isLosing(int move) {
+        int victim = position.pieceAt(Move.to(move));
+        if (victim != BitboardPosition.EMPTY && Move.promotion(move) == BitboardPosition.EMPTY &&
+                PieceSquareTables.PIECE_VALUES[BitboardPosition.typeOf(victim)] >=
+                        PieceSquareTables.PIECE_VALUES[BitboardPosition.typeOf(position.pieceAt(Move.from(move)))]) {
+            return false;
+        }
+        return StaticExchange.see(position, move) < 0;
+    }
+
+    // Selection sort one step at a time, since a cutoff often comes before the list is sorted
+    private int pickBest(MoveList moves, int from) {
+        int best = from;
+        for (int i = from + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        moves.set(best, moves.get(from));
+        moves.set(from, move);
+        int score = scores[best];
+        scores[best] = scores[from];
+        scores[from] = score;
+        return move;
+    }
+
+    private void ensureScores(int size) {
+        if (scores.length < size) {
+            scores = new int[Math.max(size, scores.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.ChessGame;
+import chess.Fen;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Lazy SMP search: every thread runs its own iterative deepening {@link Searcher}
+ * on the same position, and the threads cooperate only through a shared
+ * {@link TranspositionTable}. Helpers fill the table with results the main
+ * thread then finds instead of searching, and half of them start one ply deeper
+ * so they run ahead of it. The main thread's result is the one returned; the
+ * helpers are stopped as soon as it finishes.
+ * <p>
+ * Run with {@code java chess.engine.ParallelSearcher <depth> <max threads> [fen]}
+ * to print the time to depth and speedup for 1 up to that many threads.
+ */
+public final class ParallelSearcher {
+    private final Searcher[] searchers;
+    private final TranspositionTable table;
+
+    /**
+     * @param game    the game whose current position to search
+     * @param threads the number of threads to search with, at least 1
+     * @param table   the table the threads share
+     */
+    public ParallelSearcher(ChessGame game, int threads, TranspositionTable table) {
+        this(game.getPosition(), threads, table);
+    }
+
+    /**
+     * @param position the position to search, which is copied for every thread
+     * @param threads  the number of threads to search with, at least 1
+     * @param table    the table the threads share
+     */
+    public ParallelSearcher(BitboardPosition position, int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        }
+        this.table = table;
+        searchers = new Searcher[threads];
+        for (int i = 0; i < threads; i++) {
+            searchers[i] = new Searcher(position, table);
+            searchers[i].setStartDepth(1 + (i & 1));
+        }
+    }
+
+    /**
+     * @param listener called with every iteration the main thread completes
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        searchers[0].setListener(listener);
+    }
+
+    /**
+     * @param book the opening book the main thread plays from before searching, or null for none
+     */
+    public void setBook(PolyglotBook book) {
+        searchers[0].setBook(book);
+    }
+
+    /**
+     * @param tablebase the endgame tables every thread scores covered positions from, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        for (Searcher searcher : searchers) {
+            searcher.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Asks a running search to return as soon as possible, from any thread
+     */
+    public void stop() {
+        searchers[0].stop();
+    }
+
+    public int threads() {
+        return searchers.length;
+    }
+
+    /**
+     * Searches with every thread until the main thread reaches a limit
+     *
+     * @param limits when to stop; the helpers run until the main thread is done
+     * @return the main thread's result, with the node count of all threads
+     */
+    public SearchResult search(SearchLimits limits) {
+        // A book or table move needs no helpers
+        SearchResult known = searchers[0].probeBook();
+        if (known == null) {
+            known = searchers[0].probeTablebase();
+        }
+        if (known != null) {
+            return known;
+        }
+        table.newSearch();
+        Thread[] helpers = new Thread[searchers.length - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            Searcher helper = searchers[i + 1];
+            helpers[i] = Thread.ofPlatform().daemon().name("search-helper-" + (i + 1))
+                    .start(() -> helper.search(new SearchLimits(0, 0, 0)));
+        }
+
+        SearchResult result;
+        try {
+            result = searchers[0].search(limits);
+        } finally {
+            for (int i = 0; i < helpers.length; i++) {
+                searchers[i + 1].stop();
+            }
+            for (Thread helper : helpers) {
+                try {
+                    helper.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        long nodes = 0;
+        for (Searcher searcher : searchers) {
+            nodes += searcher.nodes();
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes,
+                result.elapsedNanos(), result.pv());
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java chess.engine.ParallelSearcher <depth> <max threads> [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        int maxThreads = Integer.parseInt(args[1]);
+        String fen = args.length > 2 ? String.join(" ", Arrays.copyOfRange(args, 2, args.length)) : Fen.START;
+        ChessGame game = Fen.parse(fen);
+
+        // Warm up the JIT so the one-thread baseline is not the slowest for the wrong reason
+        new ParallelSearcher(game, 1, new TranspositionTable(64)).search(SearchLimits.depth(depth));
+
+        System.out.printf("%-8s %10s %14s %12s %8s %9s %9s%n", "Threads", "Time (ms)", "Nodes", "Nodes/s", "Speedup",
+                "Hash hits", "Hashfull");
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            TranspositionTable table = new TranspositionTable(64);
+            ParallelSearcher searcher = new ParallelSearcher(game, threads, table);
+            SearchResult result = searcher.search(SearchLimits.depth(depth));
+            double millis = result.elapsedNanos() / 1e6;
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.printf("%-8d %10.1f %14d %12d %8.2f %8.1f%% %8.1f%%%n", threads, millis, result.nodes(),
+                    result.nodesPerSecond(), baseline / millis, table.hitRate() * 100, table.hashfull() / 10.0);
+        }
+    }
+}
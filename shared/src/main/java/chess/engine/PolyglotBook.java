@@ -0,0 +1,189 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.Move;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * An opening book in the Polyglot {@code .bin} format, memory-mapped so the
+ * entries live in the operating system's page cache rather than on the heap and
+ * are shared by every process that opens the same file.
+ * <p>
+ * The file is a sequence of 16-byte big-endian entries sorted by key: the
+ * 64-bit position key, a 16-bit move, a 16-bit weight and 32 bits of learning
+ * data, which is ignored. Moves hold the destination file in bits 0-2, its row
+ * in bits 3-5, the origin in bits 6-11 the same way and the promotion piece in
+ * bits 12-14; castling is written as the king taking its own rook.
+ * <p>
+ * A probe binary-searches the mapping for the first entry of the position and
+ * reads only primitives from it, so it allocates nothing. Probes only read the
+ * mapping, so one book can be shared by any number of threads.
+ */
+public final class PolyglotBook {
+    private static final int ENTRY_BYTES = 16;
+    // Polyglot promotion codes 1-4, as BitboardPosition types
+    private static final int[] PROMOTIONS = {BitboardPosition.EMPTY, BitboardPosition.KNIGHT,
+            BitboardPosition.BISHOP, BitboardPosition.ROOK, BitboardPosition.QUEEN};
+
+    private final MappedByteBuffer entries;
+    private final int size;
+    private final PolyglotKey hash;
+
+    private PolyglotBook(MappedByteBuffer entries, PolyglotKey hash) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+        this.hash = hash;
+    }
+
+    /**
+     * Maps a book file keyed with the published Polyglot table, as books made by
+     * other tools are
+     *
+     * @param file the book
+     * @return the book
+     * @throws IOException if the file cannot be mapped or is not a whole number of entries
+     */
+    public static PolyglotBook open(Path file) throws IOException {
+        return open(file, PolyglotKey.DEFAULT);
+    }
+
+    /**
+     * Maps a book file. The mapping stays valid after this returns.
+     *
+     * @param file the book
+     * @param hash the keys the book was built with
+     * @return the book
+     * @throws IOException if the file cannot be mapped or is not a whole number of entries
+     */
+    public static PolyglotBook open(Path file, PolyglotKey hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Not a Polyglot book: " + file);
+            }
+            return new PolyglotBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), hash);
+        }
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position the position to look up
+     * @return the book's highest-weighted move for the position, or {@link Move#NONE}.
+     * A key collision can return a move that is illegal in the position.
+     */
+    public int probe(BitboardPosition position) {
+        long key = hash.key(position);
+        int best = Move.NONE;
+        int bestWeight = -1;
+        for (int i = firstEntry(key); i < size && key(i) == key; i++) {
+            if (weight(i) > bestWeight) {
+                bestWeight = weight(i);
+                best = rawMove(i);
+            }
+        }
+        return best == Move.NONE ? Move.NONE : toMove(position, best);
+    }
+
+    /**
+     * Picks one of the book's moves for the position at random, each in proportion
+     * to its weight, so play varies from game to game
+     *
+     * @param position the position to look up
+     * @param random   the source of randomness
+     * @return the move picked, or {@link Move#NONE} if the position is not in the book
+     */
+    public int pick(BitboardPosition position, RandomGenerator random) {
+        long key = hash.key(position);
+        int first = firstEntry(key);
+        int total = 0;
+        int end = first;
+        for (; end < size && key(end) == key; end++) {
+            total += weight(end);
+        }
+        if (end == first) {
+            return Move.NONE;
+        }
+        if (total == 0) {
+            return toMove(position, rawMove(first));
+        }
+        int choice = random.nextInt(total);
+        for (int i = first; i < end; i++) {
+            choice -= weight(i);
+            if (choice < 0) {
+                return toMove(position, rawMove(i));
+            }
+        }
+        return toMove(position, rawMove(end - 1));
+    }
+
+    // Keys are compared unsigned, the way the book is sorted
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long key(int entry) {
+        return entries.getLong(entry * ENTRY_BYTES);
+    }
+
+    private int rawMove(int entry) {
+        return entries.getShort(entry * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weight(int entry) {
+        return entries.getShort(entry * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    /**
+     * Converts a Polyglot move to a packed move, with the flags the move generator
+     * would give it in the position
+     */
+    static int toMove(BitboardPosition position, int raw) {
+        int to = raw & 63;
+        int from = (raw >>> 6) & 63;
+        int promotion = PROMOTIONS[Math.min((raw >>> 12) & 7, 4)];
+        int piece = position.pieceAt(from);
+        if (piece == BitboardPosition.EMPTY) {
+            return Move.NONE;
+        }
+        int type = BitboardPosition.typeOf(piece);
+        int target = position.pieceAt(to);
+        int flags = 0;
+        if (type == BitboardPosition.KING && target == BitboardPosition.colorOf(piece) * 6 + BitboardPosition.ROOK) {
+            // The king takes its own rook: it really lands two files over toward it
+            return Move.of(from, to > from ? from + 2 : from - 2, BitboardPosition.EMPTY, Move.CASTLE);
+        }
+        if (target != BitboardPosition.EMPTY) {
+            flags |= Move.CAPTURE;
+        }
+        if (type == BitboardPosition.PAWN) {
+            if (to - from == 16 || from - to == 16) {
+                flags |= Move.DOUBLE_PUSH;
+            } else if (to == position.enPassantSquare()) {
+                flags |= Move.CAPTURE | Move.EN_PASSANT;
+            }
+        }
+        return Move.of(from, to, promotion, flags);
+    }
+}
@@ -0,0 +1,98 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Computes the position keys Polyglot opening books are sorted by. The keys are
+ * the XOR of entries of a fixed table of 781 random numbers: one per piece kind
+ * and square, four for the castling rights, eight for the en passant file and
+ * one for White to move. Books only match positions when hashed with the same
+ * table as the one they were built with. Books made by other tools use the
+ * published Polyglot Random64 table, which is {@link #DEFAULT}; a different
+ * table can be given directly or loaded as 781 big-endian longs.
+ */
+public final class PolyglotKey {
+    public static final int TABLE_SIZE = 781;
+
+    private static final int CASTLING = 768;
+    private static final int EN_PASSANT = 772;
+    private static final int TURN = 780;
+    // Polyglot numbers kinds black pawn, white pawn, black knight, ..., white king
+    private static final int[] KIND = new int[BitboardPosition.PIECE_KINDS];
+
+    static {
+        int[] order = {BitboardPosition.PAWN, BitboardPosition.KNIGHT, BitboardPosition.BISHOP,
+                BitboardPosition.ROOK, BitboardPosition.QUEEN, BitboardPosition.KING};
+        for (int i = 0; i < order.length; i++) {
+            KIND[BitboardPosition.BLACK * 6 + order[i]] = 2 * i;
+            KIND[BitboardPosition.WHITE * 6 + order[i]] = 2 * i + 1;
+        }
+    }
+
+    /**
+     * Hashes with the published Polyglot Random64 table
+     */
+    public static final PolyglotKey DEFAULT = new PolyglotKey(PolyglotRandom.RANDOM64);
+
+    private final long[] random;
+
+    /**
+     * @param random the 781 numbers to hash with
+     */
+    public PolyglotKey(long[] random) {
+        if (random.length != TABLE_SIZE) {
+            throw new IllegalArgumentException("Need " + TABLE_SIZE + " random numbers: " + random.length);
+        }
+        this.random = random.clone();
+    }
+
+    /**
+     * Reads a table of 781 big-endian longs
+     *
+     * @param file the file to read
+     * @return the hash using that table
+     * @throws IOException if the file cannot be read or has the wrong size
+     */
+    public static PolyglotKey load(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != TABLE_SIZE * Long.BYTES) {
+            throw new IOException("Expected " + TABLE_SIZE * Long.BYTES + " bytes in " + file + ": " + bytes.length);
+        }
+        long[] random = new long[TABLE_SIZE];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(random);
+        return new PolyglotKey(random);
+    }
+
+    /**
+     * @param position the position to hash
+     * @return its Polyglot key
+     */
+    public long key(BitboardPosition position) {
+        long key = 0;
+        for (long occupied = position.occupied(); occupied != 0; occupied &= occupied - 1) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            key ^= random[64 * KIND[position.pieceAt(square)] + square];
+        }
+        int castling = position.castlingRights();
+        // Our rights are in the same order: White kingside, White queenside, Black kingside, Black queenside
+        for (int right = 0; right < 4; right++) {
+            if ((castling & (1 << right)) != 0) {
+                key ^= random[CASTLING + right];
+            }
+        }
+        // Like Polyglot, the position only has an en passant square when a pawn can take on it
+        int enPassant = position.enPassantSquare();
+        if (enPassant != BitboardPosition.EMPTY) {
+            key ^= random[EN_PASSANT + (enPassant & 7)];
+        }
+        if (position.sideToMove() == BitboardPosition.WHITE) {
+            key ^= random[TURN];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,24 @@
+package chess.engine;
+
+/**
+ * How far a search may go. A search stops at whichever limit it reaches first;
+ * zero leaves that limit off.
+ *
+ * @param depth      the deepest iteration to complete, in plies
+ * @param timeMillis the wall-clock budget in milliseconds
+ * @param nodes      the most positions to visit
+ */
+public record SearchLimits(int depth, long timeMillis, long nodes) {
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, timeMillis, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, 0, nodes);
+    }
+}
@@ -0,0 +1,71 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of one completed iteration of a search.
+ *
+ * @param bestMove     the packed move (see {@link Move}) to play, or {@link Move#NONE}
+ *                     if the side to move has no legal move
+ * @param score        the score in centipawns for the side to move, or a mate
+ *                     score (see {@link #isMate()})
+ * @param depth        the iteration depth in plies
+ * @param nodes        the positions visited so far
+ * @param elapsedNanos the time spent so far
+ * @param pv           the principal variation as packed moves, starting with the best move
+ */
+public record SearchResult(int bestMove, int score, int depth, long nodes, long elapsedNanos, int[] pv) {
+
+    /**
+     * @return True if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Searcher.MATE - Searcher.MAX_PLY;
+    }
+
+    /**
+     * @return the number of moves until mate, negative when the side to move is
+     * being mated, or zero if the score is not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Searcher.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    public long nodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    /**
+     * @return the principal variation as shared {@link ChessMove} instances
+     */
+    public List<ChessMove> principalVariation() {
+        List<ChessMove> moves = new ArrayList<>(pv.length);
+        for (int move : pv) {
+            moves.add(Move.toChessMove(move));
+        }
+        return moves;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder line = new StringBuilder()
+                .append("depth ").append(depth)
+                .append(isMate() ? " score mate " + mateIn() : " score cp " + score)
+                .append(" nodes ").append(nodes)
+                .append(" nps ").append(nodesPerSecond())
+                .append(" time ").append(elapsedNanos / 1_000_000)
+                .append(" pv");
+        for (int move : pv) {
+            line.append(' ').append(Move.toString(move));
+        }
+        return line.toString();
+    }
+}
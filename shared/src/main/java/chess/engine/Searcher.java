@@ -0,0 +1,460 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Negamax alpha-beta search with iterative deepening.
+ * <p>
+ * Every move after the first at a node is searched with a null window, and only
+ * re-searched with the full window if it beats the first. Results go into a
+ * {@link TranspositionTable}, which supplies the first move to try when a
+ * position comes round again and cuts off null-window nodes outright. Moves
+ * come from a {@link MovePicker}, which tries that move, then good captures,
+ * then quiet moves that caused cutoffs before, and only generates the quiet
+ * moves once a node gets that far.
+ * <p>
+ * With a {@link PolyglotBook} set, a position found in the book is answered
+ * with the book move straight away, without searching. With a {@link Tablebase}
+ * set, a position it covers is answered with the table's line to mate, and
+ * positions inside the search that it covers are scored from it.
+ * <p>
+ * At the end of the main search a quiescence search plays on the captures that
+ * do not lose material, so a position is never scored in the middle of an
+ * exchange. The side to move may instead stand pat on the static evaluation.
+ * <p>
+ * The searcher works on its own copy of the position, playing moves from
+ * {@link MoveGenerator} with {@link BitboardPosition#makeMove(int)} and taking
+ * them back with {@link BitboardPosition#unmakeMove()}, so a search never
+ * touches the game it was started from.
+ * <p>
+ * Run with {@code java chess.engine.Searcher <milliseconds> [fen]} to print one
+ * line per completed iteration.
+ */
+public final class Searcher {
+    public static final int INFINITY = 32767;
+    public static final int MATE = 32000;
+    public static final int MAX_PLY = 128;
+
+    // Limits are only checked every this many nodes + 1
+    private static final int CHECK_INTERVAL = 1023;
+    // History scores are halved when one passes this, keeping recent cutoffs weightiest
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final BitboardPosition position;
+    private final TranspositionTable table;
+    private final boolean ownsTable;
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[BitboardPosition.PIECE_KINDS][64];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final long[] keys = new long[MAX_PLY + 1];
+    private Consumer<SearchResult> listener;
+    private PolyglotBook book;
+    private Tablebase tablebase;
+
+    private long nodes;
+    private long startNanos;
+    private long budgetNanos;
+    private long nodeLimit;
+    private int rootBest;
+    private int iterationDepth;
+    private int startDepth = 1;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+
+    /**
+     * @param game the game whose current position to search
+     */
+    public Searcher(ChessGame game) {
+        this(game.getPosition(), new TranspositionTable(16), true);
+    }
+
+    /**
+     * @param position the position to search, which is copied
+     * @param table    the table to share results through; whoever shares it calls
+     *                 {@link TranspositionTable#newSearch()} between searches
+     */
+    public Searcher(BitboardPosition position, TranspositionTable table) {
+        this(position, table, false);
+    }
+
+    private Searcher(BitboardPosition position, TranspositionTable table, boolean ownsTable) {
+        this.position = position.copy();
+        this.table = table;
+        this.ownsTable = ownsTable;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            pickers[i] = new MovePicker(history);
+        }
+    }
+
+    /**
+     * @param listener called with the result of every completed iteration
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param book the opening book to play from before searching, or null for none
+     */
+    public void setBook(PolyglotBook book) {
+        this.book = book;
+    }
+
+    /**
+     * @param tablebase the endgame tables to play and score covered positions from, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Asks a running search, or the next one to start, to return as soon as its
+     * first iteration is done. May be called from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @param depth the depth of the first iteration, so helper threads of a
+     *              parallel search do not all work on the same depth
+     */
+    void setStartDepth(int depth) {
+        startDepth = depth;
+    }
+
+    /**
+     * @return the positions visited by the last or current search
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Searches one ply deeper at a time until a limit is reached
+     *
+     * @param limits when to stop
+     * @return the result of the deepest completed iteration
+     */
+    public SearchResult search(SearchLimits limits) {
+        SearchResult known = probeBook();
+        if (known == null) {
+            known = probeTablebase();
+        }
+        if (known != null) {
+            return known;
+        }
+        int maxDepth = limits.depth() > 0 ? Math.min(limits.depth(), MAX_PLY) : MAX_PLY;
+        startNanos = System.nanoTime();
+        budgetNanos = limits.timeMillis() > 0 ? limits.timeMillis() * 1_000_000 : Long.MAX_VALUE;
+        nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        nodes = 0;
+        stopped = false;
+        rootBest = Move.NONE;
+        keys[0] = position.key();
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, Move.NONE);
+        }
+        for (int[] pieceHistory : history) {
+            Arrays.fill(pieceHistory, 0);
+        }
+        if (ownsTable) {
+            table.newSearch();
+        }
+
+        SearchResult result = new SearchResult(Move.NONE, 0, 0, 0, 0, new int[0]);
+        for (int depth = Math.min(startDepth, maxDepth); depth <= maxDepth; depth++) {
+            iterationDepth = depth;
+            int score = search(depth, 0, -INFINITY, INFINITY);
+            if (stopped) {
+                break;
+            }
+            int[] line = Arrays.copyOf(pv[0], pvLength[0]);
+            rootBest = line.length > 0 ? line[0] : Move.NONE;
+            result = new SearchResult(rootBest, score, depth, nodes, System.nanoTime() - startNanos, line);
+            if (listener != null) {
+                listener.accept(result);
+            }
+            // A mate has been found, or the next iteration would not finish in time
+            if (Math.abs(score) >= MATE - MAX_PLY || System.nanoTime() - startNanos > budgetNanos / 2) {
+                break;
+            }
+        }
+        stopRequested = false;
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes,
+                System.nanoTime() - startNanos, result.pv());
+    }
+
+    /**
+     * @return a depth 0 result holding the book move for the position, or null if
+     * there is no book or the position is not in it
+     */
+    SearchResult probeBook() {
+        if (book == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        int move = book.probe(position);
+        if (move == Move.NONE || !new MoveGenerator(position, position.sideToMove()).isLegal(move)) {
+            return null;
+        }
+        SearchResult result = new SearchResult(move, 0, 0, 0, System.nanoTime() - start, new int[]{move});
+        if (listener != null) {
+            listener.accept(result);
+        }
+        return result;
+    }
+
+    /**
+     * @return a depth 0 result holding the tables' best move for the position and,
+     * when it is won or lost, the line to mate, or null if the tables do not cover it
+     */
+    SearchResult probeTablebase() {
+        if (tablebase == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        int score = tablebase.probe(position);
+        if (score == Tablebase.UNKNOWN) {
+            return null;
+        }
+        BitboardPosition line = position.copy();
+        int[] moves = new int[MAX_PLY];
+        int length = 0;
+        while (length < MAX_PLY && (length == 0 || score != 0)) {
+            int move = bestTablebaseMove(line);
+            if (move == Move.NONE) {
+                break;
+            }
+            moves[length++] = move;
+            line.makeMove(move);
+        }
+        if (length == 0) {
+            return null;
+        }
+        SearchResult result = new SearchResult(moves[0], score, 0, 0, System.nanoTime() - start,
+                Arrays.copyOf(moves, length));
+        if (listener != null) {
+            listener.accept(result);
+        }
+        return result;
+    }
+
+    // The move to the child the tables rate best, or none if there is a child they do not cover
+    private int bestTablebaseMove(BitboardPosition line) {
+        MoveList moves = new MoveList();
+        new MoveGenerator(line, line.sideToMove()).generate(moves);
+        int best = Move.NONE;
+        int bestScore = -INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            line.makeMove(moves.get(i));
+            int child = tablebase.probe(line);
+            line.unmakeMove();
+            if (child == Tablebase.UNKNOWN) {
+                return Move.NONE;
+            }
+            // One ply further from the mate
+            int score = child == 0 ? 0 : child > 0 ? -child + 1 : -child - 1;
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves.get(i);
+            }
+        }
+        return best;
+    }
+
+    private int search(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (ply > 0 && isRepetition(ply)) {
+            return 0;
+        }
+        if (tablebase != null && ply > 0) {
+            int score = tablebase.probe(position);
+            if (score != Tablebase.UNKNOWN) {
+                return score > 0 ? score - ply : score < 0 ? score + ply : 0;
+            }
+        }
+
+        if (depth <= 0 || ply == MAX_PLY) {
+            return quiesce(ply, alpha, beta);
+        }
+        boolean pvNode = beta - alpha > 1;
+        long entry = table.probe(keys[ply]);
+        if (entry != 0 && !pvNode && TranspositionTable.depth(entry) >= depth) {
+            int score = TranspositionTable.score(entry, ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT ||
+                    (bound == TranspositionTable.LOWER && score >= beta) ||
+                    (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        MoveGenerator generator = new MoveGenerator(position, position.sideToMove());
+        // The previous iteration's best move goes first at the root, the table's move elsewhere
+        int hashMove = ply == 0 && rootBest != Move.NONE ? rootBest : TranspositionTable.move(entry);
+        MovePicker picker = pickers[ply];
+        picker.init(position, generator, hashMove, killers[ply][0], killers[ply][1]);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        int played = 0;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            position.makeMove(move);
+            keys[ply + 1] = position.key();
+            int score;
+            if (played++ == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    pv[ply][ply] = move;
+                    System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                    pvLength[ply] = pvLength[ply + 1];
+                    if (alpha >= beta) {
+                        if (!MovePicker.isTactical(move)) {
+                            rememberCutoff(move, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (played == 0) {
+            return generator.inCheck() ? -MATE + ply : 0;
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER :
+                best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(keys[ply], bestMove, best, depth, bound, ply);
+        return best;
+    }
+
+    // Only captures are searched, so the tree ends once the exchanges do. In check
+    // there is no standing pat, and every evasion is searched instead.
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (ply == MAX_PLY) {
+            return Evaluation.evaluate(position);
+        }
+
+        MoveGenerator generator = new MoveGenerator(position, position.sideToMove());
+        boolean inCheck = generator.inCheck();
+        int best = -MATE + ply;
+        if (!inCheck) {
+            best = Evaluation.evaluate(position);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.initQuiescence(position, generator);
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            position.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    pv[ply][ply] = move;
+                    System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                    pvLength[ply] = pvLength[ply + 1];
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // A quiet move that refutes one sibling often refutes the others, and its
+    // piece and square are worth trying early everywhere, the more so the deeper
+    private void rememberCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] pieceHistory = history[position.pieceAt(Move.from(move))];
+        pieceHistory[Move.to(move)] += depth * depth;
+        if (pieceHistory[Move.to(move)] > HISTORY_LIMIT) {
+            for (int[] scores : history) {
+                for (int square = 0; square < 64; square++) {
+                    scores[square] /= 2;
+                }
+            }
+        }
+    }
+
+    // Only positions with the same side to move can repeat
+    private boolean isRepetition(int ply) {
+        for (int i = ply - 2; i >= 0; i -= 2) {
+            if (keys[i] == keys[ply]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The first iteration always finishes, so there is a move to return
+    private void checkLimits() {
+        if (iterationDepth > 1 &&
+                (stopRequested || nodes >= nodeLimit || System.nanoTime() - startNanos >= budgetNanos)) {
+            stopped = true;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java chess.engine.Searcher <milliseconds> [fen]");
+            return;
+        }
+        long millis = Long.parseLong(args[0]);
+        String fen = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : Fen.START;
+        Searcher searcher = new Searcher(Fen.parse(fen));
+        searcher.setListener(System.out::println);
+        SearchResult result = searcher.search(SearchLimits.time(millis));
+        System.out.println("bestmove " + (result.bestMove() == Move.NONE ? "none" : Move.toString(result.bestMove())));
+    }
+}
@@ -0,0 +1,287 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Endgame tables built by {@link TablebaseGenerator}, giving the exact result and
+ * distance to mate of every position where one side has only its king and the
+ * other at most two more pieces, such as KQK, KRK, KPK and KBNK. The files are
+ * memory-mapped, so probing reads the page cache directly and never allocates;
+ * one instance can be shared by every search thread.
+ * <p>
+ * A table is named after its material, strongest side first: K, then the
+ * strong side's pieces in the order Q, R, B, N, P, then K. It is built with
+ * White as the strong side, and a position where Black is the strong side is
+ * probed with the board turned around. White's king is always moved onto files
+ * a-d by mirroring the board, and for tables without pawns onto rows 1-4 as
+ * well, so only a quarter or half of the positions are stored.
+ * <p>
+ * A file starts with a 16-byte header: the magic number {@code CTB1}, a format
+ * version, the bits per entry, the piece count and up to five piece types,
+ * then the number of entries. The entries follow as one little-endian bit
+ * stream. Each entry is 0 for a draw, or the number of plies to mate plus one,
+ * which is odd when the side to move is getting mated and even when it mates.
+ */
+public final class Tablebase {
+    /**
+     * Returned by {@link #probe(BitboardPosition)} for positions no table covers
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+    public static final String SUFFIX = ".tb";
+
+    static final int MAGIC = 0x43544231;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int MAX_PIECES = 4;
+    // The strong side's piece types in name order
+    static final int[] ORDER = {BitboardPosition.QUEEN, BitboardPosition.ROOK, BitboardPosition.BISHOP,
+            BitboardPosition.KNIGHT, BitboardPosition.PAWN};
+    private static final String LETTERS = "KQBNRP";
+
+    // Indexed by signature(), two bits of piece count per type in ORDER
+    private final Table[] tables = new Table[1 << (2 * ORDER.length)];
+    private int count;
+
+    private Tablebase() {
+    }
+
+    /**
+     * Maps every table in a directory
+     *
+     * @param directory the directory holding the {@code .tb} files
+     * @return the tables found, possibly none
+     * @throws IOException if a file cannot be read or is not a valid table
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Table table = Table.map(file);
+                tablebase.tables[signature(table.types)] = table;
+                tablebase.count++;
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * @return the number of tables available
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Looks a position up. Positions with castling rights are never covered.
+     *
+     * @param position the position to look up
+     * @return {@link Searcher#MATE} minus the plies to mate if the side to move
+     * mates, minus that if it is getting mated, 0 for a draw or {@link #UNKNOWN}
+     */
+    public int probe(BitboardPosition position) {
+        long occupied = position.occupied();
+        int pieces = Long.bitCount(occupied);
+        if (pieces > MAX_PIECES || position.castlingRights() != 0) {
+            return UNKNOWN;
+        }
+        int whiteKing = position.kingSquare(BitboardPosition.WHITE);
+        int blackKing = position.kingSquare(BitboardPosition.BLACK);
+        if (whiteKing == BitboardPosition.EMPTY || blackKing == BitboardPosition.EMPTY) {
+            return UNKNOWN;
+        }
+        if (pieces == 2) {
+            return 0;
+        }
+        int strong;
+        if (position.color(BitboardPosition.BLACK) == 1L << blackKing) {
+            strong = BitboardPosition.WHITE;
+        } else if (position.color(BitboardPosition.WHITE) == 1L << whiteKing) {
+            strong = BitboardPosition.BLACK;
+        } else {
+            return UNKNOWN;
+        }
+        int signature = 0;
+        for (int i = 0; i < ORDER.length; i++) {
+            signature |= Long.bitCount(position.pieces(strong * 6 + ORDER[i])) << (2 * i);
+        }
+        Table table = tables[signature];
+        if (table == null) {
+            return UNKNOWN;
+        }
+        int code = table.get(table.index(position, strong));
+        if (code == 0) {
+            return 0;
+        }
+        int plies = code - 1;
+        return (plies & 1) == 0 ? -Searcher.MATE + plies : Searcher.MATE - plies;
+    }
+
+    /**
+     * @param types the strong side's piece types, in {@link #ORDER}
+     * @return the table name, such as KBNK
+     */
+    static String name(int[] types) {
+        StringBuilder name = new StringBuilder("K");
+        for (int type : types) {
+            name.append(LETTERS.charAt(type));
+        }
+        return name.append('K').toString();
+    }
+
+    /**
+     * @param name a table name such as KBNK
+     * @return the strong side's piece types, in {@link #ORDER}
+     */
+    static int[] parse(String name) {
+        String upper = name.toUpperCase();
+        if (!upper.matches("K[QRBNP]{1," + (MAX_PIECES - 2) + "}K")) {
+            throw new IllegalArgumentException("Not a table of K and up to " + (MAX_PIECES - 2) +
+                    " pieces against K: " + name);
+        }
+        int[] types = new int[upper.length() - 2];
+        int count = 0;
+        for (int type : ORDER) {
+            for (int i = 1; i < upper.length() - 1; i++) {
+                if (LETTERS.charAt(type) == upper.charAt(i)) {
+                    types[count++] = type;
+                }
+            }
+        }
+        return types;
+    }
+
+    private static int signature(int[] types) {
+        int signature = 0;
+        for (int type : types) {
+            for (int i = 0; i < ORDER.length; i++) {
+                if (ORDER[i] == type) {
+                    signature += 1 << (2 * i);
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * The layout of one table: which index holds which position, and the mapped
+     * entries when it has been written
+     */
+    static final class Table {
+        final int[] types;
+        final boolean pawns;
+        final int size;
+        private final ByteBuffer entries;
+        private final int bits;
+
+        Table(int[] types) {
+            this(types, null, 0);
+        }
+
+        private Table(int[] types, ByteBuffer entries, int bits) {
+            this.types = types;
+            boolean hasPawn = false;
+            for (int type : types) {
+                hasPawn |= type == BitboardPosition.PAWN;
+            }
+            this.pawns = hasPawn;
+            int positions = 2 * (pawns ? 32 : 16) * 64;
+            for (int i = 0; i < types.length; i++) {
+                positions *= 64;
+            }
+            this.size = positions;
+            this.entries = entries;
+            this.bits = bits;
+        }
+
+        static Table map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+                    throw new IOException("Not a tablebase file: " + file);
+                }
+                int bits = buffer.get(5);
+                int[] types = new int[buffer.get(6)];
+                for (int i = 0; i < types.length; i++) {
+                    types[i] = buffer.get(7 + i);
+                }
+                Table table = new Table(types, buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN), bits);
+                if (buffer.getInt(12) != table.size || (long) table.size * bits / 8 + 8 > table.entries.capacity()) {
+                    throw new IOException("Truncated tablebase file: " + file);
+                }
+                return table;
+            }
+        }
+
+        int get(int index) {
+            long bit = (long) index * bits;
+            return (int) (entries.getLong((int) (bit >>> 3)) >>> (bit & 7)) & ((1 << bits) - 1);
+        }
+
+        /**
+         * @param position a position with this table's material
+         * @param strong   the ordinal of the side with the pieces
+         * @return the index of its entry
+         */
+        int index(BitboardPosition position, int strong) {
+            // Turn the board around so the strong side is White
+            int flip = strong == BitboardPosition.WHITE ? 0 : 56;
+            int whiteKing = position.kingSquare(strong) ^ flip;
+            int mirror = mirror(whiteKing);
+            int index = (position.sideToMove() == strong ? 0 : 1) * (pawns ? 32 : 16) + kingIndex(whiteKing ^ mirror);
+            index = index * 64 + (position.kingSquare(strong ^ 1) ^ flip ^ mirror);
+            for (int type : ORDER) {
+                for (long bits = position.pieces(strong * 6 + type); bits != 0; bits &= bits - 1) {
+                    index = index * 64 + (Long.numberOfTrailingZeros(bits) ^ flip ^ mirror);
+                }
+            }
+            return index;
+        }
+
+        /**
+         * @param sideToMove 0 if White, the strong side, is to move
+         * @param squares    the strong side's pieces in {@link #types} order
+         * @return the index of the position, mirrored as needed
+         */
+        int index(int sideToMove, int whiteKing, int blackKing, int[] squares) {
+            int mirror = mirror(whiteKing);
+            int index = sideToMove * (pawns ? 32 : 16) + kingIndex(whiteKing ^ mirror);
+            index = index * 64 + (blackKing ^ mirror);
+            for (int square : squares) {
+                index = index * 64 + (square ^ mirror);
+            }
+            return index;
+        }
+
+        /**
+         * @return the XOR mask that moves White's king onto files a-d, and for tables
+         * without pawns also onto rows 1-4
+         */
+        int mirror(int whiteKing) {
+            int mirror = (whiteKing & 7) > 3 ? 7 : 0;
+            if (!pawns && (whiteKing >>> 3) > 3) {
+                mirror |= 56;
+            }
+            return mirror;
+        }
+
+        // Files a-d of rows 1-8, or of rows 1-4 without pawns
+        static int kingIndex(int square) {
+            return (square >>> 3) * 4 + (square & 7);
+        }
+
+        static int kingSquare(int kingIndex) {
+            return (kingIndex >>> 2) * 8 + (kingIndex & 3);
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.Bitboards;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds the {@link Tablebase} file for a material balance by retrograde
+ * analysis, first building any smaller table it can turn into by a capture or
+ * promotion.
+ * <p>
+ * Every position of the table is first looked at once with the
+ * {@link MoveGenerator}: checkmates are lost in 0 plies, moves that leave the
+ * table are looked up in the smaller tables, and the lone king's remaining
+ * moves are counted. Then, one ply at a time, the positions decided at that
+ * ply are taken back a move. A position the strong side can move into a lost
+ * position is won one ply later; a position of the lone king is lost once every
+ * one of its moves has been found to lead to a won position. Whatever is left
+ * undecided at the end is a draw. Both passes split the positions between
+ * threads, which share the results through atomic byte updates.
+ * <p>
+ * Run with {@code java chess.engine.TablebaseGenerator <directory> <threads> <table>...},
+ * for example {@code tb 4 KQK KRK KPK KBNK}.
+ */
+public final class TablebaseGenerator {
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final byte ILLEGAL = (byte) 0xFF;
+    // The lone king has a move that draws
+    private static final byte ESCAPE = (byte) 0xFF;
+    // Entries are plies + 1 and must stay below ILLEGAL
+    private static final int MAX_PLIES = 253;
+    private static final int CHUNK = 4096;
+
+    private final Path directory;
+    private final int threads;
+
+    /**
+     * @param directory where to write the tables and find the smaller ones
+     * @param threads   the number of threads to build with, at least 1
+     */
+    public TablebaseGenerator(Path directory, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        }
+        this.directory = directory;
+        this.threads = threads;
+    }
+
+    /**
+     * Builds a table, and any smaller ones it depends on that the directory does
+     * not have yet
+     *
+     * @param name the table, such as KBNK
+     * @return the file written
+     * @throws IOException if a table cannot be read or written
+     */
+    public Path generate(String name) throws IOException {
+        int[] types = Tablebase.parse(name);
+        for (int i = 0; i < types.length; i++) {
+            // The lone king can take any piece, and a pawn can promote to any piece
+            if (types.length > 1) {
+                generateIfMissing(without(types, i));
+            }
+            if (types[i] == BitboardPosition.PAWN) {
+                for (int promotion : Tablebase.ORDER) {
+                    if (promotion != BitboardPosition.PAWN) {
+                        int[] promoted = Arrays.copyOf(without(types, i), types.length);
+                        promoted[types.length - 1] = promotion;
+                        generateIfMissing(Tablebase.parse(Tablebase.name(promoted)));
+                    }
+                }
+            }
+        }
+        Files.createDirectories(directory);
+        Tablebase smaller = Tablebase.open(directory);
+        Tablebase.Table table = new Tablebase.Table(types);
+        byte[] codes = new Solver(table, smaller).solve();
+        Path file = directory.resolve(Tablebase.name(types) + Tablebase.SUFFIX);
+        write(file, types, codes);
+        return file;
+    }
+
+    private void generateIfMissing(int[] types) throws IOException {
+        if (!Files.exists(directory.resolve(Tablebase.name(types) + Tablebase.SUFFIX))) {
+            generate(Tablebase.name(types));
+        }
+    }
+
+    private static int[] without(int[] types, int index) {
+        int[] rest = new int[types.length - 1];
+        for (int i = 0, j = 0; i < types.length; i++) {
+            if (i != index) {
+                rest[j++] = types[i];
+            }
+        }
+        return rest;
+    }
+
+    private static void write(Path file, int[] types, byte[] codes) throws IOException {
+        int max = 0;
+        for (byte code : codes) {
+            if (code != ILLEGAL) {
+                max = Math.max(max, code & 0xFF);
+            }
+        }
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        // Padded so a probe can always read a whole long
+        ByteBuffer buffer = ByteBuffer.allocate(Tablebase.HEADER_BYTES + (int) ((long) codes.length * bits / 8) + 8)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(Tablebase.MAGIC).put((byte) Tablebase.VERSION).put((byte) bits).put((byte) types.length);
+        for (int i = 0; i < 5; i++) {
+            buffer.put((byte) (i < types.length ? types[i] : 0xFF));
+        }
+        buffer.putInt(codes.length);
+        long bit = 0;
+        for (byte code : codes) {
+            int value = code == ILLEGAL ? 0 : code & 0xFF;
+            for (int i = 0; i < bits; i++, bit++) {
+                if ((value & (1 << i)) != 0) {
+                    int offset = Tablebase.HEADER_BYTES + (int) (bit >>> 3);
+                    buffer.put(offset, (byte) (buffer.get(offset) | (1 << (bit & 7))));
+                }
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(buffer.array());
+        }
+    }
+
+    /**
+     * The state of one table being built. Entries of {@code codes} are 0 while
+     * undecided, plies to mate plus one once decided, or {@link #ILLEGAL}.
+     */
+    private final class Solver {
+        private final Tablebase.Table table;
+        private final Tablebase smaller;
+        private final int pieces;
+        private final byte[] codes;
+        // For positions of the lone king: how many of its moves are not yet known to lose
+        private final byte[] remaining;
+        // For positions of the lone king: the longest loss among its moves out of the table
+        private final byte[] exitPlies;
+        // Positions decided at each ply, found before that ply is reached
+        private final IntList[] pending = new IntList[MAX_PLIES + 1];
+
+        Solver(Tablebase.Table table, Tablebase smaller) {
+            this.table = table;
+            this.smaller = smaller;
+            this.pieces = table.types.length;
+            codes = new byte[table.size];
+            remaining = new byte[table.size];
+            exitPlies = new byte[table.size];
+            for (int i = 0; i < pending.length; i++) {
+                pending[i] = new IntList();
+            }
+        }
+
+        byte[] solve() {
+            IntList[][] found = new IntList[threads][MAX_PLIES + 1];
+            for (IntList[] lists : found) {
+                for (int plies = 0; plies <= MAX_PLIES; plies++) {
+                    lists[plies] = new IntList();
+                }
+            }
+            parallel((table.size + CHUNK - 1) / CHUNK, (worker, chunk) -> {
+                int end = Math.min(table.size, (chunk + 1) * CHUNK);
+                for (int index = chunk * CHUNK; index < end; index++) {
+                    worker.classify(index, found[worker.id]);
+                }
+            });
+            for (IntList[] lists : found) {
+                for (int plies = 0; plies <= MAX_PLIES; plies++) {
+                    pending[plies].addAll(lists[plies]);
+                }
+            }
+
+            IntList[] decided = new IntList[threads];
+            for (int t = 0; t < threads; t++) {
+                decided[t] = new IntList();
+            }
+            // Positions decided at this ply: found by the previous ply, or pending until now
+            IntList frontier = new IntList();
+            for (int plies = 0; plies < MAX_PLIES; plies++) {
+                IntList waiting = pending[plies];
+                for (int i = 0; i < waiting.size(); i++) {
+                    int index = waiting.get(i);
+                    if ((boolean) BYTES.compareAndSet(codes, index, (byte) 0, (byte) (plies + 1))) {
+                        frontier.add(index);
+                    }
+                }
+                pending[plies] = null;
+
+                IntList current = frontier;
+                int level = plies;
+                for (IntList list : decided) {
+                    list.clear();
+                }
+                parallel((current.size() + CHUNK - 1) / CHUNK, (worker, chunk) -> {
+                    int end = Math.min(current.size(), (chunk + 1) * CHUNK);
+                    for (int i = chunk * CHUNK; i < end; i++) {
+                        worker.retract(current.get(i), level, decided[worker.id]);
+                    }
+                });
+                frontier = new IntList();
+                for (IntList list : decided) {
+                    frontier.addAll(list);
+                }
+            }
+            return codes;
+        }
+
+        private void parallel(int tasks, Task task) {
+            if (tasks == 0) {
+                return;
+            }
+            AtomicInteger next = new AtomicInteger();
+            Thread[] pool = new Thread[threads];
+            AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            for (int t = 0; t < threads; t++) {
+                Worker worker = new Worker(t);
+                pool[t] = Thread.ofPlatform().name("tablebase-" + t).start(() -> {
+                    try {
+                        for (int chunk = next.getAndIncrement(); chunk < tasks; chunk = next.getAndIncrement()) {
+                            task.run(worker, chunk);
+                        }
+                    } catch (RuntimeException e) {
+                        failure.set(e);
+                    }
+                });
+            }
+            for (Thread thread : pool) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while building " + Tablebase.name(table.types), e);
+                }
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+        }
+
+        @FunctionalInterface
+        private interface Task {
+            void run(Worker worker, int chunk);
+        }
+
+        /**
+         * A thread's scratch space
+         */
+        private final class Worker {
+            final int id;
+            private final BitboardPosition position = new BitboardPosition();
+            private final MoveList moves = new MoveList();
+            private final int[] squares = new int[pieces];
+            private int sideToMove;
+            private int whiteKing;
+            private int blackKing;
+
+            Worker(int id) {
+                this.id = id;
+            }
+
+            private void decode(int index) {
+                for (int i = pieces - 1; i >= 0; i--) {
+                    squares[i] = index & 63;
+                    index >>>= 6;
+                }
+                blackKing = index & 63;
+                index >>>= 6;
+                int kings = table.pawns ? 32 : 16;
+                whiteKing = Tablebase.Table.kingSquare(index % kings);
+                sideToMove = index / kings;
+            }
+
+            // Marks illegal positions, finds mates and moves out of the table, and counts the rest
+            void classify(int index, IntList[] found) {
+                decode(index);
+                long occupied = 1L << whiteKing | 1L << blackKing;
+                if (whiteKing == blackKing || (Bitboards.kingAttacks(whiteKing) & 1L << blackKing) != 0) {
+                    codes[index] = ILLEGAL;
+                    return;
+                }
+                for (int i = 0; i < pieces; i++) {
+                    long bit = 1L << squares[i];
+                    if ((occupied & bit) != 0 || (table.types[i] == BitboardPosition.PAWN &&
+                            (bit & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0)) {
+                        codes[index] = ILLEGAL;
+                        return;
+                    }
+                    occupied |= bit;
+                }
+                position.clear();
+                position.put(whiteKing, BitboardPosition.KING);
+                position.put(blackKing, 6 + BitboardPosition.KING);
+                for (int i = 0; i < pieces; i++) {
+                    position.put(squares[i], table.types[i]);
+                }
+                int us = sideToMove == 0 ? BitboardPosition.WHITE : BitboardPosition.BLACK;
+                position.setSideToMove(us);
+                if (position.isSquareAttacked(position.kingSquare(us ^ 1), us)) {
+                    codes[index] = ILLEGAL;
+                    return;
+                }
+
+                MoveGenerator generator = new MoveGenerator(position, us);
+                moves.clear();
+                generator.generate(moves);
+                if (moves.isEmpty()) {
+                    if (generator.inCheck()) {
+                        found[0].add(index);
+                    }
+                    remaining[index] = ESCAPE;
+                    return;
+                }
+                if (us == BitboardPosition.WHITE) {
+                    // The fastest win through a promotion
+                    int best = Integer.MAX_VALUE;
+                    for (int i = 0; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        if (Move.promotion(move) != BitboardPosition.EMPTY) {
+                            int score = exit(move);
+                            if (score < 0) {
+                                best = Math.min(best, score + Searcher.MATE + 1);
+                            }
+                        }
+                    }
+                    if (best <= MAX_PLIES) {
+                        found[best].add(index);
+                    }
+                    return;
+                }
+                int inside = 0;
+                int longest = 0;
+                for (int i = 0; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    if (!Move.isCapture(move)) {
+                        inside++;
+                        continue;
+                    }
+                    int score = exit(move);
+                    if (score <= 0) {
+                        remaining[index] = ESCAPE;
+                        return;
+                    }
+                    longest = Math.max(longest, Searcher.MATE - score + 1);
+                }
+                exitPlies[index] = (byte) Math.min(longest, MAX_PLIES + 1);
+                if (inside == 0) {
+                    if (longest <= MAX_PLIES) {
+                        found[longest].add(index);
+                    }
+                } else {
+                    remaining[index] = (byte) inside;
+                }
+            }
+
+            // The score of a move out of the table, for the side that then moves
+            private int exit(int move) {
+                position.makeMove(move);
+                int score = smaller.probe(position);
+                position.unmakeMove();
+                if (score == Tablebase.UNKNOWN) {
+                    throw new IllegalStateException("No table for a move out of " + Tablebase.name(table.types));
+                }
+                return score;
+            }
+
+            // Takes a position decided at this ply back one move
+            void retract(int index, int plies, IntList next) {
+                decode(index);
+                long occupied = 1L << whiteKing | 1L << blackKing;
+                for (int square : squares) {
+                    occupied |= 1L << square;
+                }
+                if (sideToMove == 1) {
+                    // Lost for Black, so won for White in every position White could have moved from
+                    for (long from = Bitboards.kingAttacks(whiteKing) & ~occupied; from != 0; from &= from - 1) {
+                        win(table.index(0, Long.numberOfTrailingZeros(from), blackKing, squares), plies, next);
+                    }
+                    for (int i = 0; i < pieces; i++) {
+                        int to = squares[i];
+                        for (long from = origins(table.types[i], to, occupied); from != 0; from &= from - 1) {
+                            squares[i] = Long.numberOfTrailingZeros(from);
+                            win(table.index(0, whiteKing, blackKing, squares), plies, next);
+                        }
+                        squares[i] = to;
+                    }
+                } else {
+                    // Won for White, so one more losing move for Black wherever it came from
+                    for (long from = Bitboards.kingAttacks(blackKing) & ~occupied; from != 0; from &= from - 1) {
+                        lose(table.index(1, whiteKing, Long.numberOfTrailingZeros(from), squares), plies, next);
+                    }
+                }
+            }
+
+            private long origins(int type, int to, long occupied) {
+                if (type != BitboardPosition.PAWN) {
+                    return Bitboards.attacks(type, to, occupied) & ~occupied;
+                }
+                long origins = 0;
+                if (to >= 16 && (occupied & 1L << (to - 8)) == 0) {
+                    origins |= 1L << (to - 8);
+                    if ((to >>> 3) == 3 && (occupied & 1L << (to - 16)) == 0) {
+                        origins |= 1L << (to - 16);
+                    }
+                }
+                return origins;
+            }
+
+            private void win(int index, int plies, IntList next) {
+                if ((boolean) BYTES.compareAndSet(codes, index, (byte) 0, (byte) (plies + 2))) {
+                    next.add(index);
+                }
+            }
+
+            private void lose(int index, int plies, IntList next) {
+                while (true) {
+                    byte count = (byte) BYTES.getVolatile(remaining, index);
+                    if (count <= 0) {
+                        return;
+                    }
+                    if ((boolean) BYTES.compareAndSet(remaining, index, count, (byte) (count - 1))) {
+                        if (count == 1) {
+                            int total = Math.max(plies + 1, exitPlies[index] & 0xFF);
+                            if (total == plies + 1) {
+                                BYTES.setVolatile(codes, index, (byte) (plies + 2));
+                                next.add(index);
+                            } else if (total <= MAX_PLIES) {
+                                synchronized (pending[total]) {
+                                    pending[total].add(index);
+                                }
+                            }
+                        }
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A growable list of ints
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java chess.engine.TablebaseGenerator <directory> <threads> <table>...");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(Path.of(args[0]), Integer.parseInt(args[1]));
+        for (int i = 2; i < args.length; i++) {
+            long start = System.nanoTime();
+            Path file = generator.generate(args[i]);
+            System.out.printf("%s %d bytes in %.1f s%n", file, Files.size(file), (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A hash table of search results shared by every thread of a search, stored
+ * off the Java heap in a direct buffer so a large table neither grows the heap
+ * nor has to be traced by the garbage collector.
+ * <p>
+ * Entries are 16 bytes: the position key XORed with the packed data, then the
+ * data itself. Four entries make a 64-byte bucket, one cache line. Threads read
+ * and write entries without locking, each long with a single atomic access; a
+ * probe recomputes the key from both halves, so an entry torn by a concurrent
+ * write simply fails to match and counts as a miss.
+ * <p>
+ * Data bits 0-18 hold the packed move, 19-34 the score, 35-42 the depth, 43-44
+ * the bound type and 45-50 the search generation. Zero data means an empty entry.
+ * <p>
+ * A store overwrites the entry for the same position if the bucket has one, and
+ * otherwise the empty or least valuable entry, where entries lose value the
+ * shallower they are and the more searches ago they were written.
+ */
+public final class TranspositionTable {
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * BUCKET_ENTRIES;
+    // A single direct buffer is indexed by int
+    private static final int MAX_MEGABYTES = 1024;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int bucketMask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private volatile int generation;
+
+    /**
+     * @param megabytes the memory to use, from 1 to 1024, rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+            throw new IllegalArgumentException("Table size must be 1 to " + MAX_MEGABYTES + " MB: " + megabytes);
+        }
+        int buckets = Integer.highestOneBit(megabytes) * (1024 * 1024 / BUCKET_BYTES);
+        buffer = ByteBuffer.allocateDirect(buckets * BUCKET_BYTES).order(ByteOrder.nativeOrder());
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * @param key the position key
+     * @return the packed data stored for the position, or 0 if there is none
+     */
+    public long probe(long key) {
+        probes.increment();
+        int bucket = bucket(key);
+        for (int offset = bucket; offset < bucket + BUCKET_BYTES; offset += ENTRY_BYTES) {
+            long data = (long) LONGS.getOpaque(buffer, offset + 8);
+            if (data != 0 && ((long) LONGS.getOpaque(buffer, offset) ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result
+     *
+     * @param key   the position key
+     * @param move  the best packed move found, or {@link Move#NONE}
+     * @param score the score relative to the node
+     * @param depth the remaining depth the score was searched to
+     * @param bound {@link #UPPER}, {@link #LOWER} or {@link #EXACT}
+     * @param ply   the distance from the root, so mate scores can be stored relative to the node
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int bucket = bucket(key);
+        int current = generation;
+        int victim = bucket;
+        int victimValue = Integer.MAX_VALUE;
+        for (int offset = bucket; offset < bucket + BUCKET_BYTES; offset += ENTRY_BYTES) {
+            long data = (long) LONGS.getOpaque(buffer, offset + 8);
+            if (data == 0) {
+                victim = offset;
+                break;
+            }
+            if (((long) LONGS.getOpaque(buffer, offset) ^ data) == key) {
+                // Keep the old move rather than forget it when this search found none
+                if (move == Move.NONE) {
+                    move = move(data);
+                }
+                victim = offset;
+                break;
+            }
+            int value = depth(data) - 8 * ((current - generation(data)) & 63);
+            if (value < victimValue) {
+                victimValue = value;
+                victim = offset;
+            }
+        }
+        long data = pack(move, toStored(score, ply), depth, bound, current);
+        LONGS.setOpaque(buffer, victim, key ^ data);
+        LONGS.setOpaque(buffer, victim + 8, data);
+    }
+
+    /**
+     * Marks the start of a new search, so entries from earlier ones are the first
+     * to be replaced
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 63;
+    }
+
+    /**
+     * Empties the table and resets the statistics. Not safe while a search is running.
+     */
+    public void clear() {
+        for (int offset = 0; offset < buffer.capacity(); offset += 8) {
+            LONGS.setOpaque(buffer, offset, 0L);
+        }
+        probes.reset();
+        hits.reset();
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int capacity() {
+        return (bucketMask + 1) * BUCKET_ENTRIES;
+    }
+
+    public int megabytes() {
+        return buffer.capacity() / (1024 * 1024);
+    }
+
+    public long probes() {
+        return probes.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the fraction of probes since the last clear that found an entry
+     */
+    public double hitRate() {
+        long probed = probes.sum();
+        return probed == 0 ? 0 : (double) hits.sum() / probed;
+    }
+
+    /**
+     * Estimates how full the table is from a sample of its first buckets
+     *
+     * @return the permille of sampled entries written by the current search
+     */
+    public int hashfull() {
+        int sampled = Math.min(capacity(), 1000);
+        int used = 0;
+        for (int i = 0; i < sampled; i++) {
+            long data = (long) LONGS.getOpaque(buffer, i * ENTRY_BYTES + 8);
+            if (data != 0 && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sampled;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0x7FFFF);
+    }
+
+    /**
+     * @param data the packed data
+     * @param ply  the distance from the root of the probing search
+     * @return the stored score, with mate scores made relative to the root again
+     */
+    public static int score(long data, int ply) {
+        int score = (short) (data >>> 19);
+        if (score >= Searcher.MATE - Searcher.MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -Searcher.MATE + Searcher.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 35) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 43) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 45) & 63;
+    }
+
+    private static long pack(int move, int score, int depth, int bound, int generation) {
+        return (move & 0x7FFFFL) | (score & 0xFFFFL) << 19 | (long) (depth & 0xFF) << 35 |
+                (long) bound << 43 | (long) generation << 45;
+    }
+
+    // Mate scores are stored as distance from this node, which is the same wherever it is reached
+    private static int toStored(int score, int ply) {
+        if (score >= Searcher.MATE - Searcher.MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -Searcher.MATE + Searcher.MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private int bucket(long key) {
+        return ((int) key & bucketMask) * BUCKET_BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return "TranspositionTable{" +
+                "megabytes=" + megabytes() +
+                ", hashfull=" + hashfull() +
+                ", hitRate=" + hitRate() +
+                '}';
+    }
+}
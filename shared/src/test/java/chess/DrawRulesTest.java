@@ -0,0 +1,67 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawRulesTest {
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            ChessPosition start = ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1);
+            ChessPosition end = ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1);
+            game.makeMove(new ChessMove(start, end, null));
+        }
+    }
+
+    @Test
+    @DisplayName("Third occurrence of a position is a repetition")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertFalse(game.isThreefoldRepetition());
+
+        play(game, "g1f3", "g8f6", "f3g1");
+        Assertions.assertFalse(game.isThreefoldRepetition());
+        play(game, "f6g8");
+        Assertions.assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Irreversible moves start a new repetition window")
+    public void pawnMoveResetsRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8", "e2e4", "e7e5");
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertFalse(game.isThreefoldRepetition());
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Fifty moves without a pawn move or capture")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/4P3/R3K3 w - - 98 80");
+        play(game, "a1a2");
+        Assertions.assertFalse(game.isFiftyMoveRule());
+        play(game, "e8d8");
+        Assertions.assertTrue(game.isFiftyMoveRule());
+
+        game = Fen.parse("4k3/8/8/8/8/8/4P3/R3K3 w - - 99 80");
+        play(game, "e2e3");
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertFalse(game.isFiftyMoveRule());
+    }
+
+    @Test
+    @DisplayName("Positions without mating material")
+    public void insufficientMaterial() {
+        Assertions.assertTrue(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertTrue(Fen.parse("4k3/8/8/8/8/8/8/2N1K3 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertTrue(Fen.parse("4kb2/8/8/8/8/8/8/2B1K3 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertFalse(Fen.parse("4k1b1/8/8/8/8/8/8/2B1K3 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertFalse(Fen.parse("4k3/8/8/8/8/8/8/1NN1K3 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertFalse(Fen.parse("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertFalse(new ChessGame().isInsufficientMaterial());
+    }
+}
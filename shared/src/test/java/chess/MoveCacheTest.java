@@ -0,0 +1,66 @@
+package chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+public class MoveCacheTest {
+
+    @AfterEach
+    public void removeCache() {
+        ChessGame.setMoveCache(null);
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        MoveCache cache = new MoveCache(4);
+        Assertions.assertEquals(MoveCache.MISS, cache.get(42L, 12));
+        cache.put(42L, 12, 0L);
+        Assertions.assertEquals(0L, cache.get(42L, 12));
+        Assertions.assertEquals(MoveCache.MISS, cache.get(42L, 13));
+        Assertions.assertEquals(1, cache.hits());
+        Assertions.assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void evictsUnreferencedEntries() {
+        MoveCache cache = new MoveCache(64);
+        for (int i = 0; i < 64; i++) {
+            cache.put(i, i, i);
+        }
+        cache.get(0, 0);
+        for (int i = 64; i < 128; i++) {
+            cache.put(i, i, i);
+            Assertions.assertEquals(64, cache.size());
+        }
+        for (int i = 64; i < 128; i++) {
+            Assertions.assertEquals(i, cache.get(i, i), "Entry " + i + " missing after eviction");
+        }
+        Assertions.assertEquals(MoveCache.MISS, cache.get(1, 1));
+    }
+
+    @Test
+    public void cachedMovesMatchGeneratedMoves() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        MoveCache cache = new MoveCache(256);
+        int occupied = 0;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                ChessGame.setMoveCache(null);
+                var expected = game.validMoves(position);
+                if (expected == null) {
+                    continue;
+                }
+                occupied++;
+                ChessGame.setMoveCache(cache);
+                Assertions.assertEquals(new HashSet<>(expected), new HashSet<>(game.validMoves(position)));
+                Assertions.assertEquals(new HashSet<>(expected), new HashSet<>(game.validMoves(position)));
+            }
+        }
+        Assertions.assertEquals(occupied, cache.misses());
+        Assertions.assertEquals(occupied, cache.hits());
+    }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Perft counts for the standard reference positions. Any change to move
+ * generation has to keep these exact.
+ */
+public class PerftTest {
+
+    @ParameterizedTest(name = "Start position depth {0}")
+    @CsvSource({"1, 20", "2, 400", "3, 8902", "4, 197281", "5, 4865609"})
+    @DisplayName("Start position")
+    public void startPosition(int depth, long nodes) {
+        Assertions.assertEquals(nodes, new Perft(Fen.parse(Fen.START)).perft(depth));
+    }
+
+    @ParameterizedTest(name = "Rook and pawn endgame depth {0}")
+    @CsvSource({"1, 14", "2, 191", "3, 2812", "4, 43238", "5, 674624"})
+    @DisplayName("Rook and pawn endgame")
+    public void rookPawnEndgame(int depth, long nodes) {
+        Assertions.assertEquals(nodes, new Perft(Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1")).perft(depth));
+    }
+
+    @ParameterizedTest(name = "Kiwipete depth {0}")
+    @CsvSource({"1, 48", "2, 2039", "3, 97862", "4, 4085603"})
+    @DisplayName("Kiwipete")
+    public void kiwipete(int depth, long nodes) {
+        Assertions.assertEquals(nodes, new Perft(Fen.parse(
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1")).perft(depth));
+    }
+
+    @ParameterizedTest(name = "Promotions and castling depth {0}")
+    @CsvSource({"1, 6", "2, 264", "3, 9467", "4, 422333"})
+    @DisplayName("Promotions and castling")
+    public void promotionsAndCastling(int depth, long nodes) {
+        Assertions.assertEquals(nodes, new Perft(Fen.parse(
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1")).perft(depth));
+    }
+
+    @ParameterizedTest(name = "Discovered checks depth {0}")
+    @CsvSource({"1, 44", "2, 1486", "3, 62379", "4, 2103487"})
+    @DisplayName("Discovered checks")
+    public void discoveredChecks(int depth, long nodes) {
+        Assertions.assertEquals(nodes, new Perft(Fen.parse(
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8")).perft(depth));
+    }
+
+    @ParameterizedTest(name = "Symmetrical middlegame depth {0}")
+    @CsvSource({"1, 46", "2, 2079", "3, 89890", "4, 3894594"})
+    @DisplayName("Symmetrical middlegame")
+    public void symmetricalMiddlegame(int depth, long nodes) {
+        Assertions.assertEquals(nodes, new Perft(Fen.parse(
+                "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10")).perft(depth));
+    }
+
+    @Test
+    @DisplayName("FEN castling rights and en passant square round trip")
+    public void fenRoundTrip() {
+        String fen = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 1";
+        Assertions.assertEquals(fen, Fen.toFen(Fen.parse(fen)));
+        Assertions.assertEquals(Fen.START, Fen.toFen(Fen.parse(Fen.START)));
+    }
+
+    @Test
+    @DisplayName("Divide sums to perft and leaves the board unchanged")
+    public void divideMatchesPerft() {
+        ChessGame game = Fen.parse(Fen.START);
+        long key = game.getPositionKey();
+        Perft perft = new Perft(game);
+
+        long total = perft.divide(3).values().stream().mapToLong(Long::longValue).sum();
+
+        Assertions.assertEquals(perft.perft(3), total);
+        Assertions.assertEquals(20, perft.divide(3).size());
+        Assertions.assertEquals(key, game.getPositionKey());
+    }
+}
@@ -0,0 +1,54 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class StaticExchangeTest {
+
+    private static int see(String fen, String move) {
+        ChessGame game = Fen.parse(fen);
+        ChessPosition start = ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1);
+        ChessPosition end = ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1);
+        ChessPiece.PieceType promotion = move.length() > 4 ? ChessPiece.PieceType.QUEEN : null;
+        return game.staticExchange(new ChessMove(start, end, promotion));
+    }
+
+    @Test
+    @DisplayName("An undefended piece is won outright")
+    public void undefended() {
+        Assertions.assertEquals(100, see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5"));
+    }
+
+    @Test
+    @DisplayName("A queen taking a pawn defended by a pawn loses the difference")
+    public void defendedByPawn() {
+        Assertions.assertEquals(-800, see("4k3/8/2p5/1p6/8/8/8/1Q2K3 w - - 0 1", "b1b5"));
+    }
+
+    @Test
+    @DisplayName("Attackers hidden behind other pieces join the exchange")
+    public void xrays() {
+        // NxP NxN, then RxN BxR QxB QxQ would leave White 970 down and stopping after
+        // BxR 400 down, so White does not recapture the knight and loses 220
+        Assertions.assertEquals(-220,
+                see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5"));
+    }
+
+    @Test
+    @DisplayName("The king does not recapture on a defended square")
+    public void kingRecapture() {
+        Assertions.assertEquals(-400, see("4k3/4p3/8/8/8/8/8/4RK2 w - - 0 1", "e1e7"));
+        // The bishop on a3 covers e7
+        Assertions.assertEquals(100, see("4k3/4p3/8/8/8/B7/8/4RK2 w - - 0 1", "e1e7"));
+    }
+
+    @Test
+    @DisplayName("Quiet moves onto attacked squares and promotions are priced too")
+    public void quietAndPromotion() {
+        Assertions.assertEquals(-900, see("4k3/8/8/2p5/8/8/8/3QK3 w - - 0 1", "d1d4"));
+        Assertions.assertEquals(0, see("4k3/8/8/8/8/8/8/3QK3 w - - 0 1", "d1d4"));
+        Assertions.assertEquals(800, see("7k/2P5/8/8/8/8/8/4K3 w - - 0 1", "c7c8q"));
+        Assertions.assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+    }
+}
@@ -0,0 +1,59 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.Fen;
+import chess.MoveGenerator;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class EvaluationTest {
+
+    private static BitboardPosition rebuild(BitboardPosition position) {
+        BitboardPosition fresh = new BitboardPosition();
+        for (int square = 0; square < 64; square++) {
+            fresh.put(square, position.pieceAt(square));
+        }
+        fresh.setSideToMove(position.sideToMove());
+        return fresh;
+    }
+
+    @Test
+    @DisplayName("The start position is level")
+    public void symmetricStart() {
+        BitboardPosition position = Fen.parse(Fen.START).getPosition();
+        Assertions.assertEquals(0, Evaluation.evaluate(position));
+        Assertions.assertEquals(24, position.phase());
+    }
+
+    @Test
+    @DisplayName("Incremental totals match a rebuild through make and unmake")
+    public void incrementalMatchesRebuild() {
+        Random random = new Random(7);
+        BitboardPosition position = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1")
+                .getPosition().copy();
+        int start = Evaluation.evaluate(position);
+        MoveList moves = new MoveList();
+        int played = 0;
+        for (; played < 200; played++) {
+            moves.clear();
+            new MoveGenerator(position, position.sideToMove()).generate(moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            position.makeMove(moves.get(random.nextInt(moves.size())));
+            BitboardPosition fresh = rebuild(position);
+            Assertions.assertEquals(fresh.middlegameScore(), position.middlegameScore());
+            Assertions.assertEquals(fresh.endgameScore(), position.endgameScore());
+            Assertions.assertEquals(fresh.phase(), position.phase());
+            Assertions.assertEquals(Evaluation.evaluate(fresh), Evaluation.evaluate(position));
+        }
+        for (; played > 0; played--) {
+            position.unmakeMove();
+        }
+        Assertions.assertEquals(start, Evaluation.evaluate(position));
+    }
+}
@@ -0,0 +1,105 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.Fen;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class MovePickerTest {
+    private static final String[] FENS = {
+            Fen.START,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+
+    private static Set<Integer> picked(BitboardPosition position, int hashMove, int killer1, int killer2) {
+        MovePicker picker = new MovePicker(new int[BitboardPosition.PIECE_KINDS][64]);
+        picker.init(position, new MoveGenerator(position, position.sideToMove()), hashMove, killer1, killer2);
+        Set<Integer> moves = new HashSet<>();
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            Assertions.assertTrue(moves.add(move), "Picked twice: " + Move.toString(move));
+        }
+        return moves;
+    }
+
+    private static Set<Integer> generated(BitboardPosition position) {
+        MoveList list = new MoveList();
+        new MoveGenerator(position, position.sideToMove()).generate(list);
+        Set<Integer> moves = new HashSet<>();
+        for (int i = 0; i < list.size(); i++) {
+            moves.add(list.get(i));
+        }
+        return moves;
+    }
+
+    @Test
+    @DisplayName("Every legal move is picked exactly once")
+    public void picksEveryMoveOnce() {
+        for (String fen : FENS) {
+            BitboardPosition position = Fen.parse(fen).getPosition();
+            Set<Integer> expected = generated(position);
+            int[] some = expected.stream().mapToInt(Integer::intValue).limit(3).toArray();
+            Assertions.assertEquals(expected, picked(position, Move.NONE, Move.NONE, Move.NONE), fen);
+            Assertions.assertEquals(expected, picked(position, some[0], some[1], some[2]), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("The hash move comes first and an illegal one is skipped")
+    public void hashMoveFirst() {
+        BitboardPosition position = Fen.parse(FENS[1]).getPosition();
+        MoveGenerator generator = new MoveGenerator(position, position.sideToMove());
+        MovePicker picker = new MovePicker(new int[BitboardPosition.PIECE_KINDS][64]);
+        int hashMove = Move.of(BitboardPosition.square(1, 1), BitboardPosition.square(1, 2), BitboardPosition.EMPTY, 0);
+        picker.init(position, generator, hashMove, Move.NONE, Move.NONE);
+        Assertions.assertEquals(hashMove, picker.next());
+
+        // a1 to a8 is blocked by the pawn on a2
+        int illegal = Move.of(BitboardPosition.square(1, 1), BitboardPosition.square(8, 1), BitboardPosition.EMPTY, 0);
+        picker.init(position, generator, illegal, Move.NONE, Move.NONE);
+        int first = picker.next();
+        Assertions.assertNotEquals(illegal, first);
+        Assertions.assertTrue(Move.isCapture(first));
+    }
+
+    @Test
+    @DisplayName("Winning captures come before quiet moves and losing captures after")
+    public void capturesOrdered() {
+        // The queen can take the loose knight, or a pawn defended by a pawn
+        BitboardPosition position = Fen.parse("4k3/8/2p5/1p3n2/8/8/8/1Q2K3 w - - 0 1").getPosition();
+        MovePicker picker = new MovePicker(new int[BitboardPosition.PIECE_KINDS][64]);
+        picker.init(position, new MoveGenerator(position, position.sideToMove()), Move.NONE, Move.NONE, Move.NONE);
+        Assertions.assertEquals("b1f5", Move.toString(picker.next()));
+        int last = Move.NONE;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            last = move;
+        }
+        Assertions.assertEquals(BitboardPosition.square(5, 2), Move.to(last));
+        Assertions.assertTrue(Move.isCapture(last));
+    }
+
+    @Test
+    @DisplayName("Killer and hash moves from other nodes get this position's flags")
+    public void staleFlags() {
+        // e2e4 was a double pawn push where the killer came from, here it is a rook move
+        BitboardPosition position = Fen.parse("k7/8/8/8/8/8/4R3/4K3 w - - 0 1").getPosition();
+        int e2 = BitboardPosition.square(2, 5);
+        int killer = Move.of(e2, BitboardPosition.square(4, 5), BitboardPosition.EMPTY, Move.DOUBLE_PUSH);
+        int hashMove = Move.of(e2, BitboardPosition.square(5, 5), BitboardPosition.EMPTY, Move.CAPTURE);
+        Assertions.assertEquals(generated(position), picked(position, hashMove, killer, Move.NONE));
+
+        MovePicker picker = new MovePicker(new int[BitboardPosition.PIECE_KINDS][64]);
+        picker.init(position, new MoveGenerator(position, position.sideToMove()), hashMove, killer, Move.NONE);
+        Assertions.assertEquals(hashMove & ~Move.CAPTURE, picker.next());
+        Assertions.assertEquals(killer & ~Move.DOUBLE_PUSH, picker.next());
+    }
+}
@@ -0,0 +1,115 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.Fen;
+import chess.Move;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class PolyglotBookTest {
+    private static final String CASTLING = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+
+    @TempDir
+    Path directory;
+
+    // Any table works for a book built with the same one
+    private static PolyglotKey hash() {
+        SplittableRandom random = new SplittableRandom(781);
+        long[] table = new long[PolyglotKey.TABLE_SIZE];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = random.nextLong();
+        }
+        return new PolyglotKey(table);
+    }
+
+    private static long[] entry(PolyglotKey hash, String fen, String move, int weight) {
+        int from = (move.charAt(1) - '1') * 8 + (move.charAt(0) - 'a');
+        int to = (move.charAt(3) - '1') * 8 + (move.charAt(2) - 'a');
+        return new long[]{hash.key(Fen.parse(fen).getPosition()), from << 6 | to, weight};
+    }
+
+    private Path write(List<long[]> entries) throws IOException {
+        entries.sort(Comparator.comparing(entry -> entry[0], Long::compareUnsigned));
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * 16);
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) entry[2]).putInt(0);
+        }
+        Path file = directory.resolve("book.bin");
+        Files.write(file, buffer.array());
+        return file;
+    }
+
+    private PolyglotBook book() throws IOException {
+        PolyglotKey hash = hash();
+        List<long[]> entries = new ArrayList<>();
+        entries.add(entry(hash, Fen.START, "e2e4", 10));
+        entries.add(entry(hash, Fen.START, "d2d4", 20));
+        entries.add(entry(hash, Fen.START, "g1f3", 5));
+        entries.add(entry(hash, CASTLING, "e1h1", 1));
+        entries.add(entry(hash, "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", "c7c5", 7));
+        return PolyglotBook.open(write(entries), hash);
+    }
+
+    @Test
+    @DisplayName("Finds the heaviest move of a position and nothing for unknown ones")
+    public void probe() throws IOException {
+        PolyglotBook book = book();
+        Assertions.assertEquals(5, book.size());
+        Assertions.assertEquals("d2d4", Move.toString(book.probe(Fen.parse(Fen.START).getPosition())));
+        int reply = book.probe(Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1").getPosition());
+        Assertions.assertEquals("c7c5", Move.toString(reply));
+        Assertions.assertEquals(Move.DOUBLE_PUSH, reply & Move.DOUBLE_PUSH);
+        Assertions.assertEquals(Move.NONE, book.probe(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1").getPosition()));
+    }
+
+    @Test
+    @DisplayName("Castling, side to move and rights all change the key")
+    public void castling() throws IOException {
+        PolyglotBook book = book();
+        int move = book.probe(Fen.parse(CASTLING).getPosition());
+        Assertions.assertEquals("e1g1", Move.toString(move));
+        Assertions.assertEquals(Move.CASTLE, move & Move.CASTLE);
+        Assertions.assertEquals(Move.NONE, book.probe(Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1").getPosition()));
+        Assertions.assertEquals(Move.NONE, book.probe(Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w Qkq - 0 1").getPosition()));
+    }
+
+    @Test
+    @DisplayName("Picks moves in proportion to their weights")
+    public void pick() throws IOException {
+        PolyglotBook book = book();
+        BitboardPosition start = Fen.parse(Fen.START).getPosition();
+        SplittableRandom random = new SplittableRandom(1);
+        int d4 = 0;
+        for (int i = 0; i < 3500; i++) {
+            if (Move.toString(book.pick(start, random)).equals("d2d4")) {
+                d4++;
+            }
+        }
+        Assertions.assertTrue(d4 > 1700 && d4 < 2300, "d2d4 picked " + d4 + " times");
+    }
+
+    @Test
+    @DisplayName("The searcher plays from the book without searching")
+    public void searcher() throws IOException {
+        Searcher searcher = new Searcher(Fen.parse(Fen.START));
+        searcher.setBook(book());
+        SearchResult result = searcher.search(SearchLimits.depth(6));
+        Assertions.assertEquals("d2d4", Move.toString(result.bestMove()));
+        Assertions.assertEquals(0, result.depth());
+
+        ParallelSearcher parallel = new ParallelSearcher(Fen.parse(CASTLING), 2, new TranspositionTable(1));
+        parallel.setBook(book());
+        Assertions.assertEquals("e1g1", Move.toString(parallel.search(SearchLimits.depth(6)).bestMove()));
+    }
+}
@@ -0,0 +1,60 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.Fen;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PolyglotKeyTest {
+    // The positions and keys published with the Polyglot book format
+    private static final String[] FENS = {
+            Fen.START,
+            "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+            "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2",
+            "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3",
+            "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4",
+            "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3",
+            "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4"
+    };
+    private static final long[] KEYS = {
+            0x463b96181691fc9cL, 0x823c9b50fd114196L, 0x0756b94461c50fb0L,
+            0x662fafb965db29d4L, 0x22a48b5a8e47ff78L, 0x652a607ca3f242c1L,
+            0x00fdd303c946bdd9L, 0x3c8123ea7b067637L, 0x5c3f9b829b279560L
+    };
+
+    @Test
+    @DisplayName("The default table gives the published keys, with castling and en passant")
+    public void publishedKeys() {
+        for (int i = 0; i < FENS.length; i++) {
+            Assertions.assertEquals(KEYS[i], PolyglotKey.DEFAULT.key(Fen.parse(FENS[i]).getPosition()), FENS[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Keys follow the published ones move by move")
+    public void keysAfterMoves() {
+        BitboardPosition position = Fen.parse(Fen.START).getPosition();
+        String[] moves = {"e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7"};
+        for (int i = 0; i < moves.length; i++) {
+            position.makeMove(move(position, moves[i]));
+            Assertions.assertEquals(KEYS[i + 1], PolyglotKey.DEFAULT.key(position), moves[i]);
+        }
+    }
+
+    private static int move(BitboardPosition position, String text) {
+        MoveList moves = new MoveList();
+        new MoveGenerator(position, position.sideToMove()).generate(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toString(moves.get(i)).equals(text)) {
+                return moves.get(i);
+            }
+        }
+        throw new AssertionError("Not legal: " + text);
+    }
+}
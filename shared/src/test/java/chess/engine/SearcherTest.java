@@ -0,0 +1,76 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SearcherTest {
+
+    private static SearchResult search(String fen, SearchLimits limits) {
+        return new Searcher(Fen.parse(fen)).search(limits);
+    }
+
+    @Test
+    @DisplayName("Finds a back rank mate in one")
+    public void mateInOne() {
+        SearchResult result = search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", SearchLimits.depth(3));
+        Assertions.assertEquals("a1a8", Move.toString(result.bestMove()));
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Finds a mate in two")
+    public void mateInTwo() {
+        SearchResult result = search("k7/8/2K5/8/8/8/8/7R w - - 0 1", SearchLimits.depth(4));
+        Assertions.assertEquals(2, result.mateIn());
+        Assertions.assertEquals(3, result.pv().length);
+    }
+
+    @Test
+    @DisplayName("Takes a hanging queen")
+    public void capturesFreeMaterial() {
+        SearchResult result = search("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1", SearchLimits.depth(3));
+        Assertions.assertEquals("d2d5", Move.toString(result.bestMove()));
+        Assertions.assertTrue(result.score() > 400);
+    }
+
+    @Test
+    @DisplayName("Sees the recapture past the horizon of a one-ply search")
+    public void quiescence() {
+        SearchResult result = search("4k3/8/2p5/1p6/8/8/8/1Q2K3 w - - 0 1", SearchLimits.depth(1));
+        Assertions.assertNotEquals("b1b5", Move.toString(result.bestMove()));
+        Assertions.assertTrue(result.score() > 0);
+    }
+
+    @Test
+    @DisplayName("Reports a mated side as having no move")
+    public void noLegalMoves() {
+        SearchResult result = search("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1", SearchLimits.depth(3));
+        Assertions.assertEquals(Move.NONE, result.bestMove());
+        Assertions.assertEquals(-Searcher.MATE, result.score());
+    }
+
+    @Test
+    @DisplayName("Stops at the node limit and leaves the game untouched")
+    public void nodeLimit() {
+        ChessGame game = Fen.parse(Fen.START);
+        long key = game.getPositionKey();
+        SearchResult result = new Searcher(game).search(SearchLimits.nodes(20_000));
+        Assertions.assertNotEquals(Move.NONE, result.bestMove());
+        Assertions.assertTrue(result.nodes() < 25_000, "Searched " + result.nodes() + " nodes");
+        Assertions.assertEquals(key, game.getPositionKey());
+    }
+
+    @Test
+    @DisplayName("Parallel search agrees with a single thread on a forced mate")
+    public void parallelMate() {
+        ParallelSearcher searcher = new ParallelSearcher(Fen.parse("k7/8/2K5/8/8/8/8/7R w - - 0 1"), 3,
+                new TranspositionTable(4));
+        SearchResult result = searcher.search(SearchLimits.depth(5));
+        Assertions.assertEquals(2, result.mateIn());
+        Assertions.assertEquals("c6b6", Move.toString(result.bestMove()));
+    }
+}
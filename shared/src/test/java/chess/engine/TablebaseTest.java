@@ -0,0 +1,128 @@
+package chess.engine;
+
+import chess.BitboardPosition;
+import chess.Fen;
+import chess.MoveGenerator;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class TablebaseTest {
+    @TempDir
+    static Path directory;
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        // KPK builds KQK, KRK, KBK and KNK first
+        new TablebaseGenerator(directory, 2).generate("KPK");
+        tablebase = Tablebase.open(directory);
+    }
+
+    private static int probe(String fen) {
+        return tablebase.probe(Fen.parse(fen).getPosition());
+    }
+
+    // A random legal placement of the pieces with the given side to move
+    private static BitboardPosition random(Random random, int[] pieces, int sideToMove) {
+        while (true) {
+            BitboardPosition position = new BitboardPosition();
+            for (int piece : pieces) {
+                int square = random.nextInt(64);
+                if (position.pieceAt(square) != BitboardPosition.EMPTY ||
+                        (BitboardPosition.typeOf(piece) == BitboardPosition.PAWN && (square < 8 || square >= 56))) {
+                    position = null;
+                    break;
+                }
+                position.put(square, piece);
+            }
+            if (position == null) {
+                continue;
+            }
+            position.setSideToMove(sideToMove);
+            if (!position.isSquareAttacked(position.kingSquare(sideToMove ^ 1), sideToMove)) {
+                return position;
+            }
+        }
+    }
+
+    private static int longestWin(int[] pieces) {
+        Random random = new Random(1);
+        int longest = 0;
+        for (int i = 0; i < 200_000; i++) {
+            int score = tablebase.probe(random(random, pieces, BitboardPosition.WHITE));
+            if (score > 0) {
+                longest = Math.max(longest, Searcher.MATE - score);
+            }
+        }
+        return longest;
+    }
+
+    @Test
+    @DisplayName("The longest wins are mate in 10 with a queen and mate in 16 with a rook")
+    public void longestMates() {
+        Assertions.assertEquals(19, longestWin(new int[]{BitboardPosition.KING, BitboardPosition.QUEEN, 6 + BitboardPosition.KING}));
+        Assertions.assertEquals(31, longestWin(new int[]{BitboardPosition.KING, BitboardPosition.ROOK, 6 + BitboardPosition.KING}));
+    }
+
+    @Test
+    @DisplayName("Every entry agrees with the best of the moves from it")
+    public void consistentWithMoves() {
+        Random random = new Random(2);
+        int[][] materials = {
+                {BitboardPosition.KING, BitboardPosition.QUEEN, 6 + BitboardPosition.KING},
+                {BitboardPosition.KING, BitboardPosition.PAWN, 6 + BitboardPosition.KING},
+                {BitboardPosition.KING, 6 + BitboardPosition.PAWN, 6 + BitboardPosition.KING},
+        };
+        MoveList moves = new MoveList();
+        for (int[] pieces : materials) {
+            for (int i = 0; i < 5_000; i++) {
+                BitboardPosition position = random(random, pieces, random.nextInt(2));
+                int score = tablebase.probe(position);
+                MoveGenerator generator = new MoveGenerator(position, position.sideToMove());
+                moves.clear();
+                generator.generate(moves);
+                int best = moves.isEmpty() ? (generator.inCheck() ? -Searcher.MATE : 0) : -Searcher.INFINITY;
+                for (int j = 0; j < moves.size(); j++) {
+                    position.makeMove(moves.get(j));
+                    int child = tablebase.probe(position);
+                    position.unmakeMove();
+                    Assertions.assertNotEquals(Tablebase.UNKNOWN, child);
+                    // One ply further from the mate
+                    best = Math.max(best, child == 0 ? 0 : child > 0 ? -child + 1 : -child - 1);
+                }
+                Assertions.assertEquals(best, score, position.toString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("King and pawn against king turns on the opposition, for either color")
+    public void opposition() {
+        Assertions.assertEquals(0, probe("8/4k3/8/4K3/4P3/8/8/8 w - - 0 1"));
+        Assertions.assertTrue(probe("8/4k3/8/4K3/4P3/8/8/8 b - - 0 1") < 0);
+        Assertions.assertEquals(0, probe("8/8/8/4p3/4k3/8/4K3/8 b - - 0 1"));
+        Assertions.assertTrue(probe("8/8/8/4p3/4k3/8/4K3/8 w - - 0 1") < 0);
+        Assertions.assertEquals(Tablebase.UNKNOWN, probe(Fen.START));
+        Assertions.assertEquals(Tablebase.UNKNOWN, probe("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1"));
+    }
+
+    @Test
+    @DisplayName("The searcher plays the fastest mate straight from the table")
+    public void searcher() {
+        Searcher searcher = new Searcher(Fen.parse("8/8/8/3k4/8/8/8/4K1Q1 w - - 0 1"));
+        searcher.setTablebase(tablebase);
+        SearchResult result = searcher.search(SearchLimits.depth(4));
+        int score = probe("8/8/8/3k4/8/8/8/4K1Q1 w - - 0 1");
+        Assertions.assertEquals(score, result.score());
+        Assertions.assertEquals(Searcher.MATE - score, result.pv().length);
+    }
+}
@@ -0,0 +1,51 @@
+package chess.engine;
+
+import chess.Move;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTest {
+
+    @Test
+    @DisplayName("Stored entries come back intact")
+    public void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.of(12, 28, -1, Move.DOUBLE_PUSH);
+        table.store(0x1234_5678_9ABC_DEF0L, move, -250, 7, TranspositionTable.LOWER, 3);
+
+        long data = table.probe(0x1234_5678_9ABC_DEF0L);
+        Assertions.assertEquals(move, TranspositionTable.move(data));
+        Assertions.assertEquals(-250, TranspositionTable.score(data, 3));
+        Assertions.assertEquals(7, TranspositionTable.depth(data));
+        Assertions.assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+        Assertions.assertEquals(0, table.probe(0x1234_5678_9ABC_DEF1L));
+        Assertions.assertEquals(0.5, table.hitRate());
+    }
+
+    @Test
+    @DisplayName("Mate scores are stored relative to the node")
+    public void mateScores() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42L, Move.NONE, Searcher.MATE - 5, 4, TranspositionTable.EXACT, 2);
+        Assertions.assertEquals(Searcher.MATE - 7, TranspositionTable.score(table.probe(42L), 4));
+    }
+
+    @Test
+    @DisplayName("A full bucket gives up its shallowest entry from an old search")
+    public void replacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long stride = table.capacity() / 4;  // Keys this far apart share a bucket
+        for (int i = 0; i < 4; i++) {
+            table.store(i * stride, Move.NONE, 0, 10 + i, TranspositionTable.EXACT, 0);
+        }
+        table.newSearch();
+        table.store(4 * stride, Move.NONE, 0, 1, TranspositionTable.EXACT, 0);
+
+        Assertions.assertEquals(0, table.probe(0));
+        for (int i = 1; i <= 4; i++) {
+            Assertions.assertNotEquals(0, table.probe(i * stride), "Entry " + i + " was replaced");
+        }
+        Assertions.assertTrue(table.hashfull() > 0);
+    }
+}